@@ -1,5 +1,5 @@
 @echo off
 echo Lancement de l'application...
 
-rem Exécute la classe principale
-java src.jeux.GameApp
\ No newline at end of file
+rem Exécute la classe principale (les arguments éventuels sont transmis, voir README)
+java src.jeux.GameApp %*
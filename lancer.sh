@@ -1,10 +1,35 @@
 #!/bin/bash
 
 # Script pour lancer l'application Jeu de Carré en Réseau
+#
+# Sans argument : menu graphique. Avec des arguments, lancement direct sans boîte de dialogue, ex :
+#   ./lancer.sh --role=hote --sans-interface --port=6789
+# Option du script, à placer en premier :
+#   --cds : démarrage accéléré par une archive AppCDS (jeux.jsa, classes dans jeux.jar). Le premier
+#           lancement la crée en quittant, les suivants la réutilisent ; elle est refaite après une
+#           recompilation.
 
 echo "Lancement de l'application..."
 
 #ce positionne dans le dossier src
 cd src
-# Exécute la classe principale qui contient la méthode main
-java jeux.GameApp
\ No newline at end of file
+
+JAVA_OPTS="-cp ."
+if [ "$1" = "--cds" ]; then
+    shift
+    # AppCDS n'archive que des classes chargées depuis un JAR : on empaquette les classes compilées,
+    # et on jette l'archive si elles ont changé depuis.
+    if [ ! -f ../jeux.jar ] || [ -n "$(find jeux -name '*.class' -newer ../jeux.jar)" ]; then
+        jar cf ../jeux.jar jeux/*.class
+        rm -f ../jeux.jsa
+    fi
+    if [ -f ../jeux.jsa ]; then
+        JAVA_OPTS="-cp ../jeux.jar -XX:SharedArchiveFile=../jeux.jsa"
+    else
+        echo "Création de l'archive AppCDS (jeux.jsa) à la fermeture de l'application..."
+        JAVA_OPTS="-cp ../jeux.jar -XX:ArchiveClassesAtExit=../jeux.jsa"
+    fi
+fi
+# Exécute la classe principale qui contient la méthode main. L'instant de lancement (en ms) permet
+# au serveur d'afficher son temps de démarrage, création de la JVM comprise.
+java $JAVA_OPTS -Djeux.lancement="$(date +%s%3N)" jeux.GameApp "$@"
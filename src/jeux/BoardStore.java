@@ -0,0 +1,156 @@
+package jeux;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Le stockage hors tas (off-heap) des grilles de toutes les parties en cours.
+ * Chaque grille occupe un "emplacement" de taille fixe dans de grands ByteBuffer directs,
+ * à raison de 2 bits par case (0 = vide, 1 = X, 2 = O) : une grille 25x25 tient en 157 octets
+ * au lieu de 26 tableaux char[] sur le tas. Avec des milliers de salles, le ramasse-miettes
+ * n'a donc plus aucun objet de grille à parcourir.
+ *
+ * Un emplacement peut aussi réserver, après les cases, des octets pour les compteurs de lignes
+ * de GameLogic (un octet par ligne gagnante et par joueur). Leur nombre dépend de la taille et
+ * de k : forGame() donne donc un stockage par couple (taille, k), partagé par toutes les parties
+ * de cette géométrie, comme LineTable. Une partie ne garde alors plus aucun tableau sur le tas.
+ *
+ * Les emplacements libérés en fin de partie sont réutilisés. La mémoire est découpée en blocs
+ * de SLOTS_PER_CHUNK emplacements, ajoutés au besoin : un bloc n'est jamais déplacé, si bien
+ * qu'une partie peut garder la référence de son bloc sans synchronisation (voir GameLogic).
+ * Deux emplacements ne partagent jamais d'octet : des parties différentes écrivent sans conflit.
+ */
+public class BoardStore {
+    // --- Codes des cases ---
+    public static final int EMPTY = 0;
+    public static final int X = 1;
+    public static final int O = 2;
+
+    /** La taille maximale de grille proposée par GameApp. */
+    public static final int MAX_BOARD_SIZE = 25;
+    private static final Map<Long, BoardStore> GAME_STORES = new ConcurrentHashMap<>();
+    private static final int SLOTS_PER_CHUNK = 1024;
+
+    // --- Attributs ---
+    private final int maxBoardSize;
+    private final int cellBytes;
+    private final int counterBytes;
+    private final int bytesPerSlot;
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+    private int nextFreshSlot; // Premier emplacement jamais utilisé.
+    private int[] freeSlots = new int[16]; // Pile des emplacements libérés.
+    private int freeCount;
+
+    /**
+     * @param maxBoardSize La plus grande taille de grille que les emplacements doivent pouvoir contenir.
+     */
+    public BoardStore(int maxBoardSize) {
+        this(maxBoardSize, 0);
+    }
+
+    /**
+     * @param maxBoardSize La plus grande taille de grille que les emplacements doivent pouvoir contenir.
+     * @param counterBytes Les octets réservés après les cases de chaque emplacement (compteurs de lignes).
+     */
+    public BoardStore(int maxBoardSize, int counterBytes) {
+        this.maxBoardSize = maxBoardSize;
+        this.cellBytes = (maxBoardSize * maxBoardSize * 2 + 7) / 8;
+        this.counterBytes = counterBytes;
+        this.bytesPerSlot = cellBytes + counterBytes;
+    }
+
+    /**
+     * Le stockage partagé des parties d'une géométrie donnée : chaque emplacement contient
+     * les cases d'une grille size x size et les compteurs de ses lignes de k cases, pour X puis O.
+     * @param size La taille de la grille (au plus MAX_BOARD_SIZE).
+     * @param winLength Le nombre de symboles à aligner.
+     */
+    public static BoardStore forGame(int size, int winLength) {
+        return GAME_STORES.computeIfAbsent(((long) size << 32) | winLength,
+                key -> new BoardStore(size, 2 * LineTable.get(size, winLength).lineCount));
+    }
+
+    /**
+     * Réserve un emplacement vide (toutes ses cases à EMPTY).
+     * @return le numéro de l'emplacement.
+     */
+    public synchronized int allocate() {
+        if (freeCount > 0) return freeSlots[--freeCount];
+        int slot = nextFreshSlot++;
+        if (slot / SLOTS_PER_CHUNK >= chunks.length) {
+            ByteBuffer[] grown = new ByteBuffer[chunks.length + 1];
+            System.arraycopy(chunks, 0, grown, 0, chunks.length);
+            grown[chunks.length] = ByteBuffer.allocateDirect(SLOTS_PER_CHUNK * bytesPerSlot);
+            chunks = grown;
+        }
+        return slot;
+    }
+
+    /**
+     * Rend un emplacement en fin de partie ; il est vidé puis pourra être réattribué.
+     * @param slot Le numéro renvoyé par allocate().
+     */
+    public synchronized void release(int slot) {
+        clear(chunk(slot), offset(slot));
+        if (freeCount == freeSlots.length) {
+            int[] grown = new int[freeSlots.length * 2];
+            System.arraycopy(freeSlots, 0, grown, 0, freeCount);
+            freeSlots = grown;
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    /** Le bloc mémoire contenant un emplacement. Il ne change jamais pour un emplacement donné. */
+    public synchronized ByteBuffer chunk(int slot) {
+        return chunks[slot / SLOTS_PER_CHUNK];
+    }
+
+    /** La position (en octets) d'un emplacement dans son bloc. */
+    public int offset(int slot) {
+        return (slot % SLOTS_PER_CHUNK) * bytesPerSlot;
+    }
+
+    /** Vide toutes les cases d'un emplacement. */
+    public void clear(ByteBuffer chunk, int offset) {
+        for (int i = 0; i < bytesPerSlot; i++) chunk.put(offset + i, (byte) 0);
+    }
+
+    public int getMaxBoardSize() {
+        return maxBoardSize;
+    }
+
+    /** Les octets des cases d'un emplacement ; les compteurs commencent juste après. */
+    public int getCellBytes() {
+        return cellBytes;
+    }
+
+    public int getCounterBytes() {
+        return counterBytes;
+    }
+
+    /** Nombre d'emplacements actuellement attribués (pour les mesures). */
+    public synchronized int getLiveSlotCount() {
+        return nextFreshSlot - freeCount;
+    }
+
+    /**
+     * Lit le code (EMPTY, X ou O) d'une case.
+     * @param chunk, offset L'emplacement de la grille.
+     * @param cell Le numéro de la case (x * taille + y).
+     */
+    public static int get(ByteBuffer chunk, int offset, int cell) {
+        return (chunk.get(offset + (cell >> 2)) >> ((cell & 3) << 1)) & 3;
+    }
+
+    /**
+     * Écrit le code (EMPTY, X ou O) d'une case.
+     * @param chunk, offset L'emplacement de la grille.
+     * @param cell Le numéro de la case (x * taille + y).
+     */
+    public static void set(ByteBuffer chunk, int offset, int cell, int code) {
+        int index = offset + (cell >> 2);
+        int shift = (cell & 3) << 1;
+        chunk.put(index, (byte) ((chunk.get(index) & ~(3 << shift)) | (code << shift)));
+    }
+}
@@ -0,0 +1,69 @@
+package jeux;
+
+/**
+ * La "Vue" d'un serveur sans interface : tout s'affiche sur la sortie standard.
+ * Aucune classe Swing ou AWT n'est chargée. Les questions reçoivent toujours la réponse "oui",
+ * si bien qu'un serveur sans interface accepte toutes les revanches.
+ */
+public class ConsoleView implements GameView {
+    private final String name;
+
+    /**
+     * @param name Le nom affiché en tête de chaque ligne (par exemple le pseudo de l'hôte).
+     */
+    public ConsoleView(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public void setTitle(String title) {
+        print(title);
+    }
+
+    @Override
+    public void setStatusMessage(String message) {
+        print(message);
+    }
+
+    /** La grille n'est pas affichée : elle change à chaque coup et encombrerait la sortie. */
+    @Override
+    public void updateBoard(char[][] board) {
+    }
+
+    /** Les pendules ne sont pas affichées (voir GAME_OVER pour les dépassements de temps). */
+    @Override
+    public void setClocks(long xMillis, long oMillis, char running) {
+    }
+
+    @Override
+    public void hideClocks() {
+    }
+
+    @Override
+    public void showEndGameOptions() {
+    }
+
+    @Override
+    public void hideEndGameOptions() {
+    }
+
+    @Override
+    public void showMessage(String title, String message) {
+        print(title + " - " + message.replace('\n', ' '));
+    }
+
+    @Override
+    public boolean confirm(String title, String question) {
+        print(title + " - " + question + " Oui (automatique).");
+        return true;
+    }
+
+    @Override
+    public void logStats(String message) {
+        print(message);
+    }
+
+    private void print(String message) {
+        System.out.println("[" + name + "] " + message);
+    }
+}
@@ -0,0 +1,362 @@
+package jeux;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * L'analyse d'après-partie : relit le replay d'une partie terminée et signale, coup par coup,
+ * - les gains manqués : le joueur pouvait gagner immédiatement et ne l'a pas fait ;
+ * - les gaffes : après le coup, l'adversaire peut gagner immédiatement, alors qu'un autre coup l'évitait.
+ * Pour chaque remarque, le coup conseillé est le gain immédiat ou, à défaut, le coup sûr le mieux
+ * évalué (GameLogic.evaluate) parmi les cases proches des pierres déjà posées.
+ *
+ * Les analyses tournent sur un seul thread démon, et seulement quand aucune partie n'est en cours
+ * dans le processus (GameServer signale chaque début et fin de partie) : entre deux positions,
+ * l'analyse se met en pause tant qu'une partie se joue. Une priorité de thread n'y suffirait pas,
+ * car Linux l'ignore par défaut. La file d'attente est bornée : au-delà, une partie n'est pas
+ * analysée plutôt que de retenir des replays sans fin sur un serveur toujours occupé.
+ * Chaque position analysée est mise en cache par son hachage de Zobrist, pour toutes les parties :
+ * les ouvertures courantes ne sont évaluées qu'une fois.
+ * Le résultat est écrit à côté du replay (fichier ".annotations") et affiché par ReplayViewer.
+ */
+public class GameAnalyzer {
+    public static final String ANNOTATIONS_SUFFIX = ".annotations";
+    /** Nombre maximal de parties en attente d'analyse. */
+    private static final int QUEUE_CAPACITY = 16;
+    /** Nombre d'entrées du cache de positions (puissance de 2). */
+    private static final int CACHE_SIZE = 1 << 16;
+    /** Distance maximale entre un coup candidat et une pierre déjà posée. */
+    private static final int CANDIDATE_RADIUS = 2;
+
+    /** Les types de remarques. */
+    public enum Kind { GAFFE, GAIN_MANQUE }
+
+    /** Une remarque sur un coup du replay. */
+    public static final class Annotation {
+        private final int moveIndex;
+        private final int x, y;
+        private final Kind kind;
+        private final int bestX, bestY;
+
+        Annotation(int moveIndex, int x, int y, Kind kind, int bestX, int bestY) {
+            this.moveIndex = moveIndex;
+            this.x = x;
+            this.y = y;
+            this.kind = kind;
+            this.bestX = bestX;
+            this.bestY = bestY;
+        }
+
+        /** Le texte affiché pendant le replay. */
+        public String describe() {
+            return kind == Kind.GAIN_MANQUE
+                    ? "Gain manqué : la victoire était en (" + bestX + "," + bestY + ")."
+                    : "Gaffe : ce coup laisse gagner l'adversaire" + (bestX >= 0 ? " (mieux : " + bestX + "," + bestY + ")." : ".");
+        }
+
+        /** Le numéro du coup (à partir de 0). */
+        public int getMoveIndex() {
+            return moveIndex;
+        }
+        public int getX() {
+            return x;
+        }
+        public int getY() {
+            return y;
+        }
+        public Kind getKind() {
+            return kind;
+        }
+        /** La case conseillée, (-1, -1) si aucune. */
+        public int getBestX() {
+            return bestX;
+        }
+        public int getBestY() {
+            return bestY;
+        }
+    }
+
+    private static final ThreadPoolExecutor POOL = createPool();
+    /** Nombre de parties en cours dans le processus : les analyses attendent qu'il retombe à zéro. */
+    private static int liveGames;
+    private static final Object IDLE = new Object();
+
+    // --- Hachage de Zobrist et cache de positions ---
+    private static final int MAX_CELLS = BoardStore.MAX_BOARD_SIZE * BoardStore.MAX_BOARD_SIZE;
+    /** Une valeur aléatoire par (case, symbole), plus une pour "O au trait". */
+    private static final long[] ZOBRIST = new SplittableRandom(0x4A45555845L).longs(2 * MAX_CELLS + 1).toArray();
+    private static final long SIDE_O = ZOBRIST[2 * MAX_CELLS];
+    /**
+     * Table de taille fixe, partagée sans verrou par les analyses : chaque entrée garde la clé
+     * XOR la donnée, si bien qu'une entrée à moitié écrite par un autre thread est simplement ignorée.
+     */
+    private static final long[] cacheKeys = new long[CACHE_SIZE];
+    private static final long[] cacheData = new long[CACHE_SIZE];
+    private static final long VALID = 1L << 40; // Une donnée n'est jamais nulle.
+
+    private static ThreadPoolExecutor createPool() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                    Thread t = new Thread(r, "analyse-" + threadNumber.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }); // File pleine : RejectedExecutionException, traitée par submit().
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /** Signale le début d'une partie : les analyses se mettent en pause jusqu'à sa fin. */
+    public static void gameStarted() {
+        synchronized (IDLE) {
+            liveGames++;
+        }
+    }
+
+    /** Signale la fin (ou l'abandon) d'une partie signalée par gameStarted(). */
+    public static void gameEnded() {
+        synchronized (IDLE) {
+            if (--liveGames == 0) IDLE.notifyAll();
+        }
+    }
+
+    /** Attend qu'aucune partie ne soit en cours. */
+    private static void awaitIdle() throws InterruptedIOException {
+        synchronized (IDLE) {
+            try {
+                while (liveGames > 0) IDLE.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Analyse interrompue");
+            }
+        }
+    }
+
+    /**
+     * Met en file d'attente l'analyse d'une partie terminée. Ne bloque jamais l'appelant :
+     * l'analyse attendra qu'aucune partie ne soit en cours.
+     * @param replay Le fichier de replay, déjà fermé.
+     * @param log Reçoit le compte rendu de l'analyse (ou de son échec), depuis le thread d'analyse :
+     *            GameServer le transmet à la console de sa vue (GameView.logStats).
+     */
+    public static void submit(Path replay, Consumer<String> log) {
+        try {
+            POOL.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    List<Annotation> annotations = analyze(replay, true);
+                    Path file = write(replay, annotations);
+                    log.accept("[Analyse] " + annotations.size() + " remarque(s) dans " + file
+                            + " (" + (System.nanoTime() - start) / 1_000_000 + " ms).");
+                } catch (IOException | RuntimeException e) {
+                    log.accept("[Analyse] Échec pour " + replay + " : " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.accept("[Analyse] File d'attente pleine : partie non analysée.");
+        }
+    }
+
+    /**
+     * Analyse un replay, dans le thread appelant.
+     * @return les remarques, dans l'ordre des coups.
+     */
+    public static List<Annotation> analyze(Path replay) throws IOException {
+        return analyze(replay, false);
+    }
+
+    /**
+     * @param yieldToGames true pour attendre, avant chaque position, qu'aucune partie ne soit en cours.
+     */
+    private static List<Annotation> analyze(Path replay, boolean yieldToGames) throws IOException {
+        try (ReplayReader reader = new ReplayReader(replay)) {
+            int size = reader.getBoardSize();
+            GameRules rules = reader.getRules();
+            int moveCount = reader.getMoveCount();
+            List<Annotation> annotations = new ArrayList<>();
+            // La même grille n'a pas la même valeur sous d'autres règles : on les mêle à la clé.
+            long hash = Protocol.mix(size * 31L + rules.encode().hashCode());
+            GameLogic game = new GameLogic(size, rules);
+            try {
+                for (int i = 0; i < moveCount; i++) {
+                    if (yieldToGames) awaitIdle();
+                    int[] move = reader.moveAt(i);
+                    int x = move[0], y = move[1];
+                    char symbol = (char) move[2];
+                    int cell = x * size + y;
+                    if (game.getCurrentPlayerSymbol() != symbol) game.switchPlayer();
+
+                    if (game.getCell(x, y) != '-') { // Un échange d'ouverture (voir ReplayWriter).
+                        if (game.swapOpening() < 0) break;
+                        hash ^= ZOBRIST[2 * cell] ^ ZOBRIST[2 * cell + 1];
+                        game.switchPlayer();
+                        continue;
+                    }
+
+                    long key = hash ^ (symbol == 'O' ? SIDE_O : 0);
+                    long info = lookup(key);
+                    if (info == 0) {
+                        info = analyzePosition(game, symbol);
+                        store(key, info);
+                    }
+
+                    if (!game.placeSymbol(x, y)) break; // Replay incohérent avec ses règles : on s'arrête là.
+                    hash ^= ZOBRIST[2 * cell + (symbol == 'X' ? 0 : 1)];
+                    boolean won = game.checkWin(x, y);
+                    int winCell = (int) (info & 0xFFFF) - 1;
+                    int bestCell = (int) ((info >>> 16) & 0xFFFF) - 1;
+                    boolean safeMoveExisted = (info & (1L << 32)) != 0;
+                    if (winCell >= 0 && !won) {
+                        annotations.add(new Annotation(i, x, y, Kind.GAIN_MANQUE, winCell / size, winCell % size));
+                    } else if (!won && safeMoveExisted && game.findWinningMove(symbol == 'X' ? 'O' : 'X') >= 0) {
+                        annotations.add(new Annotation(i, x, y, Kind.GAFFE, bestCell / size, bestCell % size));
+                    }
+                    if (won) break;
+                    game.switchPlayer();
+                }
+            } finally {
+                game.release();
+            }
+            return annotations;
+        }
+    }
+
+    /**
+     * Recherche à deux demi-coups : le joueur a-t-il un gain immédiat, sinon quel est son meilleur
+     * coup parmi ceux qui ne laissent pas de gain immédiat à l'adversaire ?
+     * @return (gain + 1) | (meilleur coup + 1) << 16 | (un coup sûr existe) << 32, marqué VALID.
+     */
+    private static long analyzePosition(GameLogic game, char symbol) {
+        int size = game.getBoardSize();
+        int win = game.findWinningMove(symbol);
+        if (win >= 0) return VALID | (1L << 32) | ((long) (win + 1) << 16) | (win + 1);
+
+        char opponent = symbol == 'X' ? 'O' : 'X';
+        boolean[] candidates = candidateCells(game);
+        int best = -1;
+        long bestScore = Long.MIN_VALUE;
+        for (int cell = 0; cell < size * size; cell++) {
+            if (!candidates[cell]) continue;
+            int x = cell / size, y = cell % size;
+            if (!game.placeSymbol(x, y)) continue;
+            boolean safe = game.findWinningMove(opponent) < 0;
+            long score = safe ? game.evaluate(symbol) : 0;
+            game.removeSymbol(x, y);
+            if (safe && score > bestScore) {
+                best = cell;
+                bestScore = score;
+            }
+        }
+        return VALID | (best >= 0 ? 1L << 32 : 0) | ((long) (best + 1) << 16);
+    }
+
+    /**
+     * Le coup conseillé au joueur dont c'est le tour (gain immédiat, sinon meilleur coup sûr, sinon
+     * n'importe quel coup permis). Sert de joueur ordinateur au serveur sans interface.
+     * @return la case (x * taille + y), ou -1 si aucun coup n'est possible.
+     */
+    public static int suggestMove(GameLogic game, char symbol) {
+        int size = game.getBoardSize();
+        if (game.getStoneCount() == 0) return (size / 2) * size + size / 2; // On ouvre au centre.
+        int best = (int) ((analyzePosition(game, symbol) >>> 16) & 0xFFFF) - 1;
+        if (best >= 0) return best;
+        // Toutes les réponses perdent (ou l'ouverture les interdit) : on joue la première case permise.
+        for (int cell = 0; cell < size * size; cell++) {
+            if (game.placeSymbol(cell / size, cell % size)) {
+                game.removeSymbol(cell / size, cell % size);
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    /** Les cases vides à au plus CANDIDATE_RADIUS d'une pierre (aucune si la grille est vide). */
+    private static boolean[] candidateCells(GameLogic game) {
+        int size = game.getBoardSize();
+        boolean[] candidates = new boolean[size * size];
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if (game.getCell(x, y) == '-') continue;
+                for (int i = Math.max(0, x - CANDIDATE_RADIUS); i <= Math.min(size - 1, x + CANDIDATE_RADIUS); i++) {
+                    for (int j = Math.max(0, y - CANDIDATE_RADIUS); j <= Math.min(size - 1, y + CANDIDATE_RADIUS); j++) {
+                        if (game.getCell(i, j) == '-') candidates[i * size + j] = true;
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private static long lookup(long key) {
+        int index = (int) key & (CACHE_SIZE - 1);
+        long data = cacheData[index];
+        return (cacheKeys[index] ^ data) == key ? data : 0;
+    }
+
+    private static void store(long key, long data) {
+        int index = (int) key & (CACHE_SIZE - 1);
+        cacheData[index] = data;
+        cacheKeys[index] = key ^ data;
+    }
+
+    // --- Fichier d'annotations ---
+
+    /** Le fichier d'annotations d'un replay : "partie.replay.annotations". */
+    public static Path annotationsFile(Path replay) {
+        return replay.resolveSibling(replay.getFileName() + ANNOTATIONS_SUFFIX);
+    }
+
+    /**
+     * Écrit les remarques (une par ligne, "coup;x;y;TYPE;xConseillé;yConseillé"),
+     * via un fichier temporaire pour qu'un lecteur ne voie jamais un fichier à moitié écrit.
+     */
+    static Path write(Path replay, List<Annotation> annotations) throws IOException {
+        Path file = annotationsFile(replay);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            out.write("# Analyse de " + replay.getFileName() + " : " + annotations.size() + " remarque(s)");
+            out.newLine();
+            for (Annotation a : annotations) {
+                out.write(a.moveIndex + ";" + a.x + ";" + a.y + ";" + a.kind + ";" + a.bestX + ";" + a.bestY);
+                out.newLine();
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return file;
+    }
+
+    /**
+     * Lit les remarques d'un replay.
+     * @return les remarques, ou null si la partie n'a pas (encore) été analysée.
+     */
+    public static List<Annotation> load(Path replay) throws IOException {
+        Path file = annotationsFile(replay);
+        if (!Files.exists(file)) return null;
+        List<Annotation> annotations = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] f = line.split(";");
+            try {
+                annotations.add(new Annotation(Integer.parseInt(f[0]), Integer.parseInt(f[1]), Integer.parseInt(f[2]),
+                        Kind.valueOf(f[3]), Integer.parseInt(f[4]), Integer.parseInt(f[5])));
+            } catch (RuntimeException e) {
+                throw new IOException("Annotation invalide : " + line, e);
+            }
+        }
+        return annotations;
+    }
+}
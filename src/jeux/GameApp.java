@@ -1,16 +1,70 @@
 package jeux;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.Set;
+import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 
 /**
  * Le point d'entrée de l'application. Affiche la première fenêtre de choix
  * ("Héberger" ou "Rejoindre") et lance ensuite le serveur ou le client
  * avec les paramètres saisis par l'utilisateur.
+ *
+ * Avec des arguments, l'application se lance sans aucune boîte de dialogue (voir USAGE) :
+ * utile pour les scripts, les tests de charge ou une borne de jeu. Un hôte lancé
+ * "--sans-interface" ne charge aucune classe Swing ou AWT.
  */
 public class GameApp {
+    static final String USAGE = String.join("\n",
+            "Usage : java jeux.GameApp [--cle=valeur ...]",
+            "  --role=hote|client|routeur  (obligatoire)",
+            "  --port=6789                 port d'écoute (hôte, routeur) ou du serveur (client)",
+            "  --pseudo=nom",
+            "  --taille=15                 taille de la grille, entre 5 et 25 (hôte)",
+            "  --regles=5,LIBRE,AUCUNE     alignement, LIBRE|EXACT, AUCUNE|SWAP|PRO (hôte)",
+            "  --cadence=5+3               minutes+incrément en secondes, 0 = sans pendule (hôte)",
+            "  --adresse=127.0.0.1         adresse du serveur ou du routeur (client)",
+            "  --salle=nom                 serveur préféré derrière un routeur, choisi par hachage (client)",
+            "  --noeuds=hote:port,...      serveurs de jeu derrière le routeur (routeur)",
+            "  --mode=RELAIS|REDIRECTION   relais des octets ou redirection du client (routeur)",
+            "  --sans-interface            hôte sans fenêtre : X est joué par l'ordinateur",
+            "  --arret-apres-ecoute        quitte dès que le port est ouvert (mesure du démarrage)",
+            "  --config=fichier            fichier .properties avec les mêmes clés (sans \"--\") ;",
+            "                              la ligne de commande l'emporte sur le fichier");
+    /** Bornes de la cadence : 24 heures de temps principal, une heure d'incrément. */
+    static final int MAX_MAIN_MINUTES = 24 * 60;
+    static final int MAX_INCREMENT_SECONDS = 3600;
+    private static final Set<String> OPTIONS = Set.of("role", "port", "pseudo", "taille", "regles", "cadence",
+            "adresse", "salle", "noeuds", "mode", "sans-interface", "arret-apres-ecoute", "config");
+
     public static void main(String[] args) {
+        if (args.length > 0) {
+            try {
+                launch(parseArguments(args));
+            } catch (IllegalArgumentException | IOException e) {
+                System.err.println("Erreur : " + e.getMessage());
+                System.err.println(USAGE);
+                System.exit(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else {
+            showMainMenu();
+        }
+    }
+
+    /**
+     * Le lancement interactif historique, par boîtes de dialogue.
+     */
+    private static void showMainMenu() {
         // Affiche la boîte de dialogue initiale.
-        Object[] options = {"Héberger une partie", "Rejoindre une partie"};
+        Object[] options = {"Héberger une partie", "Rejoindre une partie", "Revoir une partie"};
         int choice = JOptionPane.showOptionDialog(null, "Bienvenue au Jeu de Carré !\nQue voulez-vous faire ?",
                 "Menu Principal", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
 
@@ -24,6 +78,26 @@ public class GameApp {
                     gridSize = Integer.parseInt(gridSizeStr);
                 } catch (NumberFormatException e) { /* La boucle continue si la saisie est invalide. */ }
             }
+            // Demande les règles : alignement, LIBRE (alignements plus longs acceptés) ou EXACT, ouverture.
+            GameRules rules = null;
+            while (rules == null) {
+                String rulesStr = JOptionPane.showInputDialog(null, "Entrez les règles (alignement,LIBRE|EXACT,AUCUNE|SWAP|PRO):", GameRules.standard().encode());
+                if (rulesStr == null) return; // L'utilisateur a annulé.
+                try {
+                    rules = GameRules.parse(rulesStr);
+                    rules.validate(gridSize);
+                } catch (IllegalArgumentException e) {
+                    JOptionPane.showMessageDialog(null, e.getMessage(), "Règles invalides", JOptionPane.WARNING_MESSAGE);
+                    rules = null;
+                }
+            }
+            // Demande la cadence de jeu ("minutes+secondes d'incrément", 0 pour jouer sans pendule).
+            long[] timeControl = null;
+            while (timeControl == null) {
+                String timeControlStr = JOptionPane.showInputDialog(null, "Entrez la cadence (minutes+incrément en secondes, ex: 5+3, 0 = sans pendule):", "0");
+                if (timeControlStr == null) return; // L'utilisateur a annulé.
+                timeControl = parseTimeControl(timeControlStr.trim());
+            }
             // Demande le pseudo avec validation.
             String pseudo = "";
             while (pseudo.trim().isEmpty()) {
@@ -31,7 +105,7 @@ public class GameApp {
                 if (pseudo == null) return; // L'utilisateur a annulé.
             }
             // Lance le serveur.
-            new GameServer(pseudo, gridSize).startServer();
+            new GameServer(pseudo, gridSize, rules, timeControl[0], timeControl[1]).startServer();
         } else if (choice == JOptionPane.NO_OPTION) { // L'utilisateur veut rejoindre.
             // Demande l'IP du serveur avec validation.
             String serverIp = "";
@@ -47,6 +121,114 @@ public class GameApp {
             }
             // Lance le client.
             new GameClient(pseudo, serverIp).startClient();
+        } else if (choice == 2) { // L'utilisateur veut revoir une partie enregistrée.
+            File dir = ReplayWriter.REPLAY_DIR.toFile();
+            JFileChooser chooser = new JFileChooser(dir.isDirectory() ? dir : new File("."));
+            if (chooser.showOpenDialog(null) != JFileChooser.APPROVE_OPTION) return; // L'utilisateur a annulé.
+            try {
+                new ReplayViewer(chooser.getSelectedFile().toPath()).start();
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(null, "Impossible d'ouvrir ce replay : " + e.getMessage(), "Replay", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    /**
+     * Lit les options "--cle=valeur" (ou "--cle" seule pour un interrupteur), complétées par
+     * le fichier indiqué par --config s'il y en a un.
+     * @throws IllegalArgumentException si une option est inconnue ou mal formée.
+     * @throws IOException si le fichier de configuration est illisible.
+     */
+    static Properties parseArguments(String[] args) throws IOException {
+        Properties commandLine = new Properties();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) throw new IllegalArgumentException("Option inattendue : " + arg);
+            int equals = arg.indexOf('=');
+            String key = equals < 0 ? arg.substring(2) : arg.substring(2, equals);
+            commandLine.setProperty(key, equals < 0 ? "true" : arg.substring(equals + 1));
+        }
+        Properties options = new Properties();
+        String config = commandLine.getProperty("config");
+        if (config != null) {
+            try (Reader reader = Files.newBufferedReader(Path.of(config), StandardCharsets.UTF_8)) {
+                options.load(reader);
+            }
+        }
+        options.putAll(commandLine);
+        for (String key : options.stringPropertyNames()) {
+            if (!OPTIONS.contains(key)) throw new IllegalArgumentException("Option inconnue : " + key);
+        }
+        return options;
+    }
+
+    /**
+     * Lance l'hôte, le client ou le routeur avec des options déjà lues, sans boîte de dialogue.
+     */
+    static void launch(Properties options) throws InterruptedException, IOException {
+        String role = options.getProperty("role");
+        int port = parseInt(options, "port", GameServer.DEFAULT_PORT, 1, 65535);
+        boolean headless = Boolean.parseBoolean(options.getProperty("sans-interface", "false"));
+        if ("hote".equals(role)) {
+            int gridSize = parseInt(options, "taille", 15, 5, 25);
+            GameRules rules = GameRules.parse(options.getProperty("regles", GameRules.standard().encode()));
+            rules.validate(gridSize);
+            long[] timeControl = parseTimeControl(options.getProperty("cadence", "0").trim());
+            if (timeControl == null) throw new IllegalArgumentException("Cadence invalide : " + options.getProperty("cadence"));
+            GameServer server = new GameServer(options.getProperty("pseudo", headless ? "Ordinateur" : "Joueur 1"),
+                    gridSize, rules, timeControl[0], timeControl[1], port, headless);
+            server.startServer();
+            if (Boolean.parseBoolean(options.getProperty("arret-apres-ecoute", "false"))) {
+                server.awaitListening();
+                System.exit(0);
+            }
+        } else if ("client".equals(role)) {
+            if (headless) throw new IllegalArgumentException("--sans-interface est réservé à l'hôte.");
+            new GameClient(options.getProperty("pseudo", "Joueur 2"), options.getProperty("adresse", "127.0.0.1"), port,
+                    options.getProperty("salle")).startClient();
+        } else if ("routeur".equals(role)) {
+            String nodes = options.getProperty("noeuds");
+            if (nodes == null) throw new IllegalArgumentException("--noeuds est obligatoire pour le routeur.");
+            GameRouter.Mode mode;
+            try {
+                mode = GameRouter.Mode.valueOf(options.getProperty("mode", "RELAIS").trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("--mode doit valoir RELAIS ou REDIRECTION.");
+            }
+            new GameRouter(port, GameRouter.parseNodes(nodes), mode).run();
+        } else {
+            throw new IllegalArgumentException("--role doit valoir hote, client ou routeur.");
+        }
+    }
+
+    private static int parseInt(Properties options, String key, int defaultValue, int min, int max) {
+        String value = options.getProperty(key);
+        if (value == null) return defaultValue;
+        try {
+            int n = Integer.parseInt(value.trim());
+            if (n >= min && n <= max) return n;
+        } catch (NumberFormatException e) { /* Message d'erreur ci-dessous. */ }
+        throw new IllegalArgumentException("--" + key + " doit être un entier entre " + min + " et " + max + " : " + value);
+    }
+
+    /**
+     * Lit une cadence "minutes+secondes" (ex: "5+3") ou "minutes" seules.
+     * Les valeurs doivent être des nombres finis, positifs et bornés (MAX_MAIN_MINUTES, MAX_INCREMENT_SECONDS) :
+     * "Infinity" ou "1e300" feraient déborder les calculs en nanosecondes de GameClock.
+     * @return {temps principal, incrément} en millisecondes, ou null si la saisie est invalide.
+     */
+    static long[] parseTimeControl(String spec) {
+        try {
+            String[] parts = spec.split("\\+", 2);
+            double minutes = Double.parseDouble(parts[0]);
+            double seconds = parts.length > 1 ? Double.parseDouble(parts[1]) : 0;
+            // Les comparaisons sont fausses pour NaN : il est rejeté avec le reste.
+            if (!(minutes >= 0 && minutes <= MAX_MAIN_MINUTES) || !(seconds >= 0 && seconds <= MAX_INCREMENT_SECONDS)) return null;
+            long mainMillis = Math.round(minutes * 60_000);
+            long incrementMillis = Math.round(seconds * 1000);
+            if (minutes > 0 && mainMillis == 0) return null; // Trop court pour être une pendule.
+            return new long[] { mainMillis, mainMillis == 0 ? 0 : incrementMillis };
+        } catch (NumberFormatException e) {
+            return null;
         }
     }
 }
\ No newline at end of file
@@ -16,6 +16,10 @@ public class GameClient implements GameController {
     private String myPseudo;
     private String opponentPseudo;
     private final String serverIp;
+    private final int serverPort;
+    private final String room; // La salle demandée au routeur (null sans routeur).
+    /** Nombre maximal de redirections suivies (un routeur renvoie vers un nœud, qui ne redirige pas). */
+    private static final int MAX_REDIRECTS = 3;
     private GameUI ui;
     private PrintWriter out;
     private char mySymbol;
@@ -24,10 +28,31 @@ public class GameClient implements GameController {
     private volatile boolean gameOver = false;
     private volatile boolean gameStarted = false;
     private char[][] board; // Copie locale de la grille pour l'affichage.
+    private long mainTimeMillis; // Temps principal annoncé par le serveur (0 = sans pendule).
+    private GameRules rules = GameRules.standard(); // Règles annoncées par le serveur.
+    private int stoneCount; // Nombre de pierres sur la grille locale.
+    private boolean swapDone; // L'ouverture swap a déjà été utilisée.
+    // Coup affiché avant la réponse du serveur (affichage optimiste), en attente de confirmation.
+    private int moveSeq; // Numéro du dernier coup envoyé.
+    private int pendingSeq; // Numéro du coup en attente, 0 s'il n'y en a pas.
+    private int pendingX, pendingY;
 
     public GameClient(String pseudo, String serverIp) {
+        this(pseudo, serverIp, GameServer.DEFAULT_PORT);
+    }
+
+    public GameClient(String pseudo, String serverIp, int serverPort) {
+        this(pseudo, serverIp, serverPort, null);
+    }
+
+    /**
+     * @param room La salle, qui désigne le serveur préféré derrière un GameRouter (null pour un serveur direct).
+     */
+    public GameClient(String pseudo, String serverIp, int serverPort, String room) {
         this.myPseudo = pseudo;
         this.serverIp = serverIp;
+        this.serverPort = serverPort;
+        this.room = room;
     }
 
     /**
@@ -42,15 +67,42 @@ public class GameClient implements GameController {
      * S'exécute dans un thread d'arrière-plan pour ne pas geler l'UI.
      */
     private void runClientLogic() {
-        try (Socket socket = new Socket(serverIp, 6789)) {
-            this.out = new PrintWriter(socket.getOutputStream(), true);
-            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            // Envoie le message de connexion initial.
-            out.println("CONNECT:" + myPseudo);
+        String host = serverIp;
+        int port = serverPort;
+        for (int redirects = 0; ; redirects++) {
+            String redirect = connectAndListen(host, port, redirects < MAX_REDIRECTS);
+            if (redirect == null) return;
+            // "hôte:port" du nœud choisi par le routeur : on s'y reconnecte.
+            int colon = redirect.lastIndexOf(':');
+            try {
+                host = redirect.substring(0, colon);
+                port = Integer.parseInt(redirect.substring(colon + 1));
+            } catch (RuntimeException e) {
+                handleDisconnect();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Une connexion à un serveur (ou à un routeur) et sa boucle d'écoute.
+     * @param followRedirect true si une redirection peut encore être suivie.
+     * @return l'adresse "hôte:port" si le routeur redirige ailleurs, null quand la connexion est finie.
+     */
+    private String connectAndListen(String host, int port, boolean followRedirect) {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true); // Chaque coup part tout de suite, sans attendre l'algorithme de Nagle.
+            this.out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), Protocol.CHARSET), true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), Protocol.CHARSET));
+            // Envoie le message de connexion initial (avec la salle, pour un routeur).
+            out.println("CONNECT:" + myPseudo + (room != null ? ";" + room : ""));
 
             // Boucle d'écoute : attend en permanence les messages du serveur.
             String serverMessage;
             while ((serverMessage = in.readLine()) != null) {
+                if (serverMessage.startsWith("REDIRECT:") && followRedirect && !gameStarted) {
+                    return serverMessage.substring("REDIRECT:".length());
+                }
                 if ("DISCONNECT".equals(serverMessage)) {
                     handleDisconnect();
                     break;
@@ -66,6 +118,7 @@ public class GameClient implements GameController {
         } catch (IOException e) {
             handleDisconnect();
         }
+        return null;
     }
 
     /**
@@ -91,6 +144,10 @@ public class GameClient implements GameController {
                 this.opponentPseudo = this.myPseudo.equals(serverPseudo) ? clientPseudo : serverPseudo;
                 char startPlayer = startData[2].charAt(0);
                 int gridSize = Integer.parseInt(startData[3]);
+                this.mainTimeMillis = startData.length > 4 ? Long.parseLong(startData[4]) : 0;
+                this.rules = startData.length > 6 ? GameRules.parse(startData[6]) : GameRules.standard();
+                this.stoneCount = 0;
+                this.swapDone = false;
                 
                 // Crée la grille et l'UI avec la bonne taille reçue du serveur.
                 this.board = new char[gridSize][gridSize];
@@ -101,7 +158,9 @@ public class GameClient implements GameController {
                 
                 gameStarted = true;
                 myTurn = (mySymbol == startPlayer);
-                ui.setStatusMessage(myTurn ? "La partie commence! C'est à vous." : "C'est le tour de " + opponentPseudo + ".");
+                ui.setStatusMessage((myTurn ? "La partie commence! C'est à vous." : "C'est le tour de " + opponentPseudo + ".")
+                        + " (" + rules.describe() + ")");
+                if (mainTimeMillis > 0) ui.setClocks(mainTimeMillis, mainTimeMillis, startPlayer);
                 break;
 
             case "VALID_MOVE":
@@ -110,9 +169,26 @@ public class GameClient implements GameController {
                  int y = Integer.parseInt(moveData[1]);
                  char playerWhoMoved = moveData[2].charAt(0);
                  
-                 // 1. Mettre à jour la grille locale.
-                 if (this.board != null) this.board[x][y] = playerWhoMoved;
+                 // Pour nos coups, le serveur renvoie le numéro de séquence du MOVE correspondant.
+                 boolean confirmsPending = pendingSeq != 0 && playerWhoMoved == this.mySymbol
+                         && (moveData.length > 5 ? Integer.parseInt(moveData[5]) == pendingSeq : (x == pendingX && y == pendingY));
+                 
+                 // 1. Mettre à jour la grille locale (une case déjà occupée est un échange d'ouverture).
+                 if (this.board != null) {
+                     if (this.board[x][y] == '-' || confirmsPending) stoneCount++;
+                     else swapDone = true;
+                     this.board[x][y] = playerWhoMoved;
+                 }
+                 if (confirmsPending) {
+                     // Le coup déjà affiché devient définitif.
+                     pendingSeq = 0;
+                     ui.setPendingCell(-1, -1);
+                 }
                  ui.updateBoard(this.board);
+                 // Le serveur joint à chaque coup le temps restant de X puis de O (champs vides sans pendule).
+                 if (moveData.length > 4 && !moveData[3].isEmpty()) {
+                     ui.setClocks(Long.parseLong(moveData[3]), Long.parseLong(moveData[4]), playerWhoMoved == 'X' ? 'O' : 'X');
+                 }
                  
                  // 2. Déterminer à qui est le tour de manière EXPLICITE.
                  if (playerWhoMoved == this.mySymbol) {
@@ -120,27 +196,35 @@ public class GameClient implements GameController {
                      ui.setStatusMessage("C'est le tour de " + opponentPseudo + ".");
                  } else {
                      this.myTurn = true; // C'est le coup de l'ADVERSAIRE, donc c'est mon tour.
-                     ui.setStatusMessage("C'est à votre tour.");
+                     ui.setStatusMessage(canSwap() ? "C'est à votre tour. Cliquez sur sa pierre pour la prendre (ouverture swap)." : "C'est à votre tour.");
                  }
                 break;
 
             case "GAME_OVER":
                 gameOver = true;
+                rollbackPendingMove(); // Un coup encore en attente n'a pas été joué (temps écoulé).
                 String[] endData = data.split(";");
                 String finalMessage;
+                if (mainTimeMillis > 0) ui.stopClocks(); // Fige l'affichage sur le dernier temps connu.
                 
                 if (endData[0].equals("VICTORY")) {
                     String winnerName = endData[1];
                     System.out.println("--- DEBUG (Client) ---" +myPseudo+ "Victoire détectée pour " + winnerName + ". Envoi du message GAME_OVER.");
-                    if(myPseudo == winnerName) {
+                    if(myPseudo.equals(winnerName)) {
                     	finalMessage = "FIN DE PARTIE: Vous avez gagné !";
                     }else {
                     	finalMessage = "FIN DE PARTIE: " + winnerName + " a gagné !";
                     }
                     
+                } else if (endData[0].equals("TIMEOUT")) {
+                    String winnerName = endData[1];
+                    finalMessage = myPseudo.equals(winnerName)
+                            ? "FIN DE PARTIE: Temps écoulé pour " + opponentPseudo + ", vous avez gagné !"
+                            : "FIN DE PARTIE: Temps écoulé, " + winnerName + " a gagné !";
                 } else {
                     finalMessage = "FIN DE PARTIE: Match nul !";
                 }
+                if (endData.length > 2) finalMessage += "\n" + endData[2]; // Le classement Elo mis à jour.
                 JOptionPane.showMessageDialog(ui, finalMessage, "Partie terminée", JOptionPane.INFORMATION_MESSAGE);
                 ui.showEndGameOptions();
                 break;
@@ -159,8 +243,16 @@ public class GameClient implements GameController {
                 break;
 
             case "INVALID_MOVE":
+                // Format "seq;raison" si le coup refusé était numéroté, sinon "raison".
+                int rejectedSeq = 0;
+                int separator = data.indexOf(';');
+                if (separator > 0 && data.substring(0, separator).chars().allMatch(Character::isDigit)) {
+                    rejectedSeq = Integer.parseInt(data.substring(0, separator));
+                    data = data.substring(separator + 1);
+                }
+                if (rejectedSeq == 0 || rejectedSeq == pendingSeq) rollbackPendingMove();
                 ui.setStatusMessage("Serveur: " + data + " Réessayez.");
-                myTurn = true; // Si mon coup est invalide, c'est toujours à moi de jouer.
+                myTurn = !gameOver; // Si mon coup est invalide, c'est toujours à moi de jouer.
                 break;
         }
     }
@@ -170,11 +262,16 @@ public class GameClient implements GameController {
         gameOver = false;
         gameStarted = true;
         for (int i = 0; i < board.length; i++) for (int j = 0; j < board.length; j++) board[i][j] = '-';
+        stoneCount = 0;
+        swapDone = false;
+        pendingSeq = 0;
+        ui.setPendingCell(-1, -1);
         ui.updateBoard(board);
         ui.hideEndGameOptions();
         myTurn = (mySymbol == 'X'); // Le serveur (X) recommence toujours.
         ui.setTitle(myPseudo + " (" + mySymbol + ") vs " + opponentPseudo + " (" + (mySymbol == 'X' ? 'O' : 'X') + ")");
         ui.setStatusMessage(myTurn ? "Nouvelle partie ! C'est à vous." : "Nouvelle partie ! Tour de " + opponentPseudo + ".");
+        if (mainTimeMillis > 0) ui.setClocks(mainTimeMillis, mainTimeMillis, 'X');
     }
 
     /** Gère la déconnexion de l'adversaire. */
@@ -195,11 +292,41 @@ public class GameClient implements GameController {
     @Override
     public void onGridCellClicked(int x, int y) {
         if (gameStarted && myTurn && !gameOver) {
-            out.println("MOVE:" + x + ";" + y);
+            if (x < 0 || x >= board.length || y < 0 || y >= board.length) return;
+            // En ouverture swap, cliquer sur la première pierre adverse demande l'échange.
+            if (canSwap() && board[x][y] == (mySymbol == 'X' ? 'O' : 'X')) {
+                out.println("SWAP");
+            } else if (board[x][y] == '-') {
+                // Affichage optimiste : le coup apparaît tout de suite, marqué "en attente",
+                // puis VALID_MOVE le confirme ou INVALID_MOVE l'annule.
+                pendingSeq = ++moveSeq;
+                pendingX = x;
+                pendingY = y;
+                board[x][y] = mySymbol;
+                ui.setPendingCell(x, y);
+                ui.updateBoard(board);
+                out.println("MOVE:" + x + ";" + y + ";" + pendingSeq);
+            } else {
+                return; // Case déjà occupée : inutile de solliciter le serveur.
+            }
             myTurn = false; // Désactive immédiatement le tour pour éviter les double-clics.
         }
     }
 
+    /** Retire de la grille locale le coup affiché d'avance et refusé (ou jamais joué). */
+    private void rollbackPendingMove() {
+        if (pendingSeq == 0) return;
+        if (board[pendingX][pendingY] == mySymbol) board[pendingX][pendingY] = '-';
+        pendingSeq = 0;
+        ui.setPendingCell(-1, -1);
+        ui.updateBoard(board);
+    }
+
+    /** Indique si l'ouverture swap nous est ouverte : seul O peut prendre la toute première pierre de X. */
+    private boolean canSwap() {
+        return rules.getOpening() == GameRules.Opening.SWAP && mySymbol == 'O' && stoneCount == 1 && !swapDone;
+    }
+
     /** Appelé par l'UI quand le joueur ferme la fenêtre. */
     @Override
     public void onWindowClosed() {
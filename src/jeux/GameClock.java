@@ -0,0 +1,166 @@
+package jeux;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * La pendule d'une partie (cadence "temps principal + incrément par coup").
+ * Le temps est mesuré avec System.nanoTime(), une horloge monotone insensible aux
+ * changements d'heure du système.
+ * Aucune pendule ne possède de thread : seule l'échéance du joueur au trait est programmée
+ * sur un ordonnanceur partagé par toutes les parties, puis annulée dès qu'il a joué.
+ * Entre deux coups, une pendule qui tourne ne coûte donc rien, même avec des centaines de parties.
+ */
+public class GameClock {
+    // --- Attributs ---
+    /** Ordonnanceur commun (un seul thread démon) pour les échéances de toutes les pendules. */
+    private static final ScheduledThreadPoolExecutor SCHEDULER = createScheduler();
+
+    private final long mainNanos;
+    private final long incrementNanos;
+    private final Consumer<Character> onTimeout;
+    private long remainingX;
+    private long remainingO;
+    private char running = 0; // Le symbole du joueur dont la pendule tourne, 0 si elle est arrêtée.
+    private long turnStartNanos;
+    private ScheduledFuture<?> expiry;
+
+    /**
+     * Constructeur de la pendule.
+     * @param mainMillis Le temps principal de chaque joueur en millisecondes (0 = pas de pendule).
+     * @param incrementMillis Le temps ajouté après chaque coup joué.
+     * @param onTimeout Appelé (sur le thread de l'ordonnanceur) avec le symbole du joueur tombé.
+     */
+    public GameClock(long mainMillis, long incrementMillis, Consumer<Character> onTimeout) {
+        this.mainNanos = TimeUnit.MILLISECONDS.toNanos(mainMillis);
+        this.incrementNanos = TimeUnit.MILLISECONDS.toNanos(incrementMillis);
+        this.onTimeout = onTimeout;
+        reset();
+    }
+
+    private static ScheduledThreadPoolExecutor createScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "pendules");
+            t.setDaemon(true); // Ne doit pas empêcher l'application de se fermer.
+            return t;
+        });
+        // Les échéances annulées (cas normal : le joueur a joué à temps) quittent aussitôt la file.
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /** Indique si la partie se joue avec une pendule. */
+    public boolean isEnabled() {
+        return mainNanos > 0;
+    }
+
+    /** Arrête la pendule et redonne le temps principal aux deux joueurs. */
+    public synchronized void reset() {
+        cancelExpiry();
+        running = 0;
+        remainingX = mainNanos;
+        remainingO = mainNanos;
+    }
+
+    /**
+     * Démarre la pendule du joueur donné.
+     * @param symbol Le symbole du joueur au trait.
+     */
+    public synchronized void start(char symbol) {
+        if (!isEnabled()) return;
+        cancelExpiry();
+        running = symbol;
+        turnStartNanos = System.nanoTime();
+        scheduleExpiry(symbol, remaining(symbol));
+    }
+
+    /**
+     * Appuie sur la pendule après le coup du joueur au trait : son temps est décompté,
+     * l'incrément lui est ajouté et la pendule de l'adversaire démarre.
+     * @param symbol Le symbole du joueur qui vient de jouer.
+     * @return false si ce joueur avait déjà dépassé son temps (la pendule est alors arrêtée).
+     */
+    public synchronized boolean punch(char symbol) {
+        if (!isEnabled()) return true;
+        if (running != symbol) return false; // L'échéance est déjà tombée.
+        cancelExpiry();
+        long left = remaining(symbol) - (System.nanoTime() - turnStartNanos);
+        if (left <= 0) {
+            setRemaining(symbol, 0);
+            running = 0;
+            return false;
+        }
+        setRemaining(symbol, left + incrementNanos);
+        start(symbol == 'X' ? 'O' : 'X');
+        return true;
+    }
+
+    /** Arrête la pendule (fin de partie) en conservant le temps restant de chacun. */
+    public synchronized void stop() {
+        if (running == 0) return;
+        cancelExpiry();
+        setRemaining(running, Math.max(0, remaining(running) - (System.nanoTime() - turnStartNanos)));
+        running = 0;
+    }
+
+    /**
+     * Donne le temps restant d'un joueur, en tenant compte du coup en cours de réflexion.
+     * @param symbol Le symbole du joueur.
+     */
+    public synchronized long getRemainingMillis(char symbol) {
+        long left = remaining(symbol);
+        if (running == symbol) left -= System.nanoTime() - turnStartNanos;
+        return TimeUnit.NANOSECONDS.toMillis(Math.max(0, left));
+    }
+
+    /** Le symbole du joueur dont la pendule tourne, 0 si elle est arrêtée. */
+    public synchronized char getRunningSymbol() {
+        return running;
+    }
+
+    public long getMainMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(mainNanos);
+    }
+    public long getIncrementMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(incrementNanos);
+    }
+
+    /** Exécuté par l'ordonnanceur à l'échéance prévue du joueur au trait. */
+    private void expire(char symbol) {
+        synchronized (this) {
+            if (running != symbol) return; // Le joueur a joué entre-temps.
+            long left = remaining(symbol) - (System.nanoTime() - turnStartNanos);
+            if (left > 0) { // Réveil légèrement en avance : on reprogramme le reliquat.
+                scheduleExpiry(symbol, left);
+                return;
+            }
+            setRemaining(symbol, 0);
+            running = 0;
+            expiry = null;
+        }
+        // Le rappel est fait hors du verrou pour ne pas bloquer la pendule pendant son traitement.
+        onTimeout.accept(symbol);
+    }
+
+    private void scheduleExpiry(char symbol, long delayNanos) {
+        expiry = SCHEDULER.schedule(() -> expire(symbol), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void cancelExpiry() {
+        if (expiry != null) {
+            expiry.cancel(false);
+            expiry = null;
+        }
+    }
+
+    private long remaining(char symbol) {
+        return symbol == 'X' ? remainingX : remainingO;
+    }
+
+    private void setRemaining(char symbol, long nanos) {
+        if (symbol == 'X') remainingX = nanos;
+        else remainingO = nanos;
+    }
+}
@@ -1,30 +1,117 @@
 package jeux;
 
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+
 /**
  * Le "cerveau" du jeu. Cette classe gère l'état de la grille, les règles du jeu,
  * la validation des coups et la détection de la victoire ou du match nul.
  * Elle est totalement indépendante de l'interface graphique et du réseau.
+ *
+ * La victoire ne se calcule pas en parcourant la grille : pour chaque ligne gagnante
+ * de la table précalculée (LineTable), on tient le nombre de symboles de chaque joueur.
+ * Un coup met à jour les compteurs des seules lignes qui passent par sa case, et
+ * "k alignés" revient à lire un compteur égal à k. Les mêmes compteurs servent à
+ * l'évaluation heuristique d'une position (evaluate).
+ *
+ * Ni les cases ni les compteurs ne sont stockés dans l'objet : une instance n'est qu'une vue
+ * sur son emplacement du BoardStore (2 bits par case, puis un octet par ligne et par joueur,
+ * le tout hors tas). L'emplacement est rendu par
+ * release() en fin de partie, ou automatiquement si l'instance est abandonnée.
  */
 public class GameLogic {
     // --- Attributs ---
     private final int boardSize;
-    private char[][] board;
+    private final GameRules rules;
+    private final LineTable lines;
+    private final BoardStore store;
+    private final int slot;
+    // Le bloc hors tas et la position de notre emplacement, fixés pour toute la vie de la partie.
+    private final ByteBuffer cells;
+    private final int cellsOffset;
+    private final Cleaner.Cleanable slotRelease;
     private char currentPlayerSymbol;
     private boolean isGameOver;
+    // Position, dans le bloc, du nombre de symboles de X et de O de chaque ligne gagnante
+    // (un octet par ligne : le compte ne dépasse jamais k).
+    private final int countX;
+    private final int countO;
+    private int stoneCount;
+    private int firstMoveCell; // La case du premier coup (pour l'ouverture swap), -1 si aucun.
+    private boolean swapped;
 
     private static final char EMPTY_CELL = '-';
-    private static final int WINNING_STREAK = 5;
+    /** Rend l'emplacement des parties abandonnées sans appel à release(). */
+    private static final Cleaner CLEANER = Cleaner.create();
 
     /**
-     * Constructeur de la logique du jeu.
+     * Constructeur de la logique du jeu avec les règles historiques (5 alignés).
      * @param size La taille de la grille (ex: 15 pour une grille 15x15).
      */
     public GameLogic(int size) {
+        this(size, GameRules.standard());
+    }
+
+    /**
+     * Constructeur de la logique du jeu.
+     * @param size La taille de la grille (ex: 15 pour une grille 15x15).
+     * @param rules Les règles de la partie, déjà validées pour cette taille.
+     */
+    public GameLogic(int size, GameRules rules) {
+        this(size, rules, BoardStore.forGame(size, rules.getWinLength()));
+    }
+
+    /**
+     * Constructeur de la logique du jeu dans un stockage de grilles donné.
+     * @param size La taille de la grille (au plus store.getMaxBoardSize()).
+     * @param rules Les règles de la partie, déjà validées pour cette taille.
+     * @param store Le stockage hors tas où réserver l'emplacement de la grille ; ses emplacements
+     *              doivent réserver deux octets par ligne gagnante (voir BoardStore.forGame).
+     */
+    public GameLogic(int size, GameRules rules, BoardStore store) {
+        if (size > store.getMaxBoardSize()) {
+            throw new IllegalArgumentException("Grille trop grande pour le stockage : " + size + " > " + store.getMaxBoardSize());
+        }
         this.boardSize = size;
-        this.board = new char[boardSize][boardSize];
+        this.rules = rules;
+        this.lines = LineTable.get(size, rules.getWinLength());
+        if (store.getCounterBytes() < 2 * lines.lineCount) {
+            throw new IllegalArgumentException("Le stockage ne réserve pas les compteurs de " + lines.lineCount + " lignes.");
+        }
+        this.store = store;
+        this.slot = store.allocate();
+        this.cells = store.chunk(slot);
+        this.cellsOffset = store.offset(slot);
+        this.slotRelease = CLEANER.register(this, new SlotRelease(store, slot));
+        this.countX = cellsOffset + store.getCellBytes();
+        this.countO = countX + lines.lineCount;
         reset(); // Initialise la grille et les variables d'état.
     }
 
+    /**
+     * Rend l'emplacement de la grille au stockage (fin de partie, salle fermée).
+     * L'instance ne doit plus être utilisée ensuite. Appeler release() plusieurs fois est sans effet.
+     */
+    public void release() {
+        slotRelease.clean();
+    }
+
+    /** L'action de libération, qui ne doit pas retenir l'instance pour que le Cleaner la voie disparaître. */
+    private static final class SlotRelease implements Runnable {
+        private final BoardStore store;
+        private final int slot;
+
+        SlotRelease(BoardStore store, int slot) {
+            this.store = store;
+            this.slot = slot;
+        }
+
+        @Override
+        public void run() {
+            store.release(slot);
+        }
+    }
+
     /**
      * Réinitialise la grille et l'état du jeu pour une nouvelle partie.
      * Met toutes les cases à vide, redonne le tour au joueur 'X' et réactive la partie.
@@ -32,18 +119,17 @@ public class GameLogic {
     public void reset() {
         this.isGameOver = false;
         this.currentPlayerSymbol = 'X'; // Le joueur 'X' (serveur) commence toujours.
-        for (int i = 0; i < boardSize; i++) {
-            for (int j = 0; j < boardSize; j++) {
-                board[i][j] = EMPTY_CELL;
-            }
-        }
+        store.clear(cells, cellsOffset); // Les cases et les compteurs.
+        this.stoneCount = 0;
+        this.firstMoveCell = -1;
+        this.swapped = false;
     }
 
     /**
      * Tente de placer le symbole du joueur courant aux coordonnées données.
      * @param x Coordonnée de la ligne.
      * @param y Coordonnée de la colonne.
-     * @return true si le coup est valide, false sinon (case occupée, hors grille, etc.).
+     * @return true si le coup est valide, false sinon (case occupée, hors grille, interdit par l'ouverture, etc.).
      */
     public boolean placeSymbol(int x, int y) {
         // Vérification 1: La partie n'est-elle pas déjà terminée ?
@@ -51,75 +137,195 @@ public class GameLogic {
         // Vérification 2: Les coordonnées sont-elles dans la grille ?
         if (x < 0 || x >= boardSize || y < 0 || y >= boardSize) return false;
         // Vérification 3: La case est-elle vide ?
-        if (board[x][y] != EMPTY_CELL) return false;
+        if (symbolAt(x * boardSize + y) != EMPTY_CELL) return false;
+        // Vérification 4: Le coup respecte-t-il la règle d'ouverture ?
+        if (!isAllowedByOpening(x, y)) return false;
 
         // Si toutes les vérifications passent, on place le symbole.
-        board[x][y] = currentPlayerSymbol;
+        setSymbol(x * boardSize + y, currentPlayerSymbol);
+        addToLines(x * boardSize + y, currentPlayerSymbol == 'X' ? countX : countO, 1);
+        if (stoneCount == 0) firstMoveCell = x * boardSize + y;
+        stoneCount++;
+        return true;
+    }
+
+    /**
+     * Règle pro : le premier coup se joue au centre et le deuxième coup de X
+     * (troisième pierre) à au moins PRO_MIN_DISTANCE cases du centre.
+     */
+    private boolean isAllowedByOpening(int x, int y) {
+        if (rules.getOpening() != GameRules.Opening.PRO) return true;
+        int center = boardSize / 2;
+        if (stoneCount == 0) return x == center && y == center;
+        if (stoneCount == 2) return Math.max(Math.abs(x - center), Math.abs(y - center)) >= GameRules.PRO_MIN_DISTANCE;
         return true;
     }
 
+    /**
+     * Retire le symbole d'une case : annule le dernier coup joué sur cette case.
+     * Sert à explorer des variantes (robots, analyse d'après-partie) sans recopier la grille.
+     * Ne s'utilise pas pour annuler un échange d'ouverture, et ne change pas le joueur courant.
+     * @param x, y La case à vider.
+     */
+    public void removeSymbol(int x, int y) {
+        int cell = x * boardSize + y;
+        char symbol = symbolAt(cell);
+        if (symbol == EMPTY_CELL) return;
+        addToLines(cell, symbol == 'X' ? countX : countO, -1);
+        BoardStore.set(cells, cellsOffset, cell, BoardStore.EMPTY);
+        stoneCount--;
+        if (stoneCount == 0) firstMoveCell = -1;
+        this.isGameOver = false;
+    }
+
+    /**
+     * Cherche un coup qui ferait gagner immédiatement un joueur : une ligne où il lui manque
+     * un seul symbole et où l'adversaire n'a rien posé. Seules ces lignes sont examinées.
+     * @param symbol Le joueur ('X' ou 'O').
+     * @return la case gagnante (x * taille + y), ou -1 s'il n'y en a pas.
+     */
+    public int findWinningMove(char symbol) {
+        int mine = symbol == 'X' ? countX : countO;
+        int theirs = symbol == 'X' ? countO : countX;
+        for (int line = 0; line < lines.lineCount; line++) {
+            if (cells.get(mine + line) != lines.length - 1 || cells.get(theirs + line) != 0) continue;
+            for (int i = line * lines.length; i < (line + 1) * lines.length; i++) {
+                int cell = lines.lineCells[i];
+                if (symbolAt(cell) == EMPTY_CELL) {
+                    if (wouldWin(cell, symbol)) return cell;
+                    break;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /** Pose provisoirement un symbole sur une case vide et regarde s'il gagne (règle "EXACT" comprise). */
+    private boolean wouldWin(int cell, char symbol) {
+        if (!rules.isExactLength()) return true; // Une ligne à k-1 sans adversaire se complète toujours.
+        int counts = symbol == 'X' ? countX : countO;
+        setSymbol(cell, symbol);
+        addToLines(cell, counts, 1);
+        boolean wins = false;
+        for (int i = lines.cellStart[cell]; i < lines.cellStart[cell + 1] && !wins; i++) {
+            int line = lines.cellLines[i];
+            wins = cells.get(counts + line) == lines.length && !extendsBeyond(line, symbol);
+        }
+        addToLines(cell, counts, -1);
+        BoardStore.set(cells, cellsOffset, cell, BoardStore.EMPTY);
+        return wins;
+    }
+
+    /**
+     * Indique si le joueur courant peut s'approprier la pierre d'ouverture (règle swap) :
+     * seulement juste après le tout premier coup de la partie.
+     */
+    public boolean canSwap() {
+        return !isGameOver && rules.getOpening() == GameRules.Opening.SWAP && stoneCount == 1 && !swapped;
+    }
+
+    /**
+     * Applique l'ouverture swap : la pierre du premier coup devient celle du joueur courant.
+     * Comme pour placeSymbol, c'est à l'appelant de passer ensuite le tour.
+     * @return la case (x * taille + y) de la pierre échangée, ou -1 si l'échange n'est pas permis.
+     */
+    public int swapOpening() {
+        if (!canSwap()) return -1;
+        int cell = firstMoveCell;
+        char previous = symbolAt(cell);
+        addToLines(cell, previous == 'X' ? countX : countO, -1);
+        setSymbol(cell, currentPlayerSymbol);
+        addToLines(cell, currentPlayerSymbol == 'X' ? countX : countO, 1);
+        swapped = true;
+        return cell;
+    }
+
+    /** Ajoute delta au compteur du joueur de chaque ligne passant par la case. */
+    private void addToLines(int cell, int counts, int delta) {
+        for (int i = lines.cellStart[cell]; i < lines.cellStart[cell + 1]; i++) {
+            int index = counts + lines.cellLines[i];
+            cells.put(index, (byte) (cells.get(index) + delta));
+        }
+    }
+
     /**
      * Vérifie si le dernier coup aux coordonnées (x,y) est un coup gagnant.
+     * Seules les lignes passant par (x,y) sont consultées, en lisant leur compteur.
      * @param x La ligne du dernier coup.
      * @param y La colonne du dernier coup.
      * @return true si le joueur courant a gagné, false sinon.
      */
     public boolean checkWin(int x, int y) {
-        // On vérifie les 4 axes possibles à partir de la dernière pièce jouée.
-        if (countConsecutiveSymbols(x, y, 1, 0) >= WINNING_STREAK || // Horizontal (--)
-            countConsecutiveSymbols(x, y, 0, 1) >= WINNING_STREAK || // Vertical (|)
-            countConsecutiveSymbols(x, y, 1, 1) >= WINNING_STREAK || // Diagonale (\)
-            countConsecutiveSymbols(x, y, 1, -1) >= WINNING_STREAK) { // Anti-diagonale (/)
-            
-            this.isGameOver = true; // La partie est terminée.
-            return true;
+        char symbol = symbolAt(x * boardSize + y);
+        if (symbol == EMPTY_CELL) return false;
+        int counts = symbol == 'X' ? countX : countO;
+        int cell = x * boardSize + y;
+        for (int i = lines.cellStart[cell]; i < lines.cellStart[cell + 1]; i++) {
+            int line = lines.cellLines[i];
+            if (cells.get(counts + line) == lines.length && (!rules.isExactLength() || !extendsBeyond(line, symbol))) {
+                this.isGameOver = true; // La partie est terminée.
+                return true;
+            }
         }
         return false;
     }
-    
-    /**
-     * Méthode utilitaire pour compter les symboles consécutifs dans une direction.
-     * @param x, y Coordonnées de départ.
-     * @param dx, dy Vecteur de direction (ex: dx=1, dy=0 pour l'horizontale).
-     */
-    private int countConsecutiveSymbols(int x, int y, int dx, int dy) {
-        char symbol = board[x][y];
-        if (symbol == EMPTY_CELL) return 0;
-        int count = 1; // On compte la pièce de départ.
-
-        // On regarde dans la direction (dx, dy).
-        for (int i = 1; i < WINNING_STREAK; i++) {
-            int newX = x + i * dx;
-            int newY = y + i * dy;
-            if (newX >= 0 && newX < boardSize && newY >= 0 && newY < boardSize && board[newX][newY] == symbol) {
-                count++;
-            } else {
-                break; // La chaîne est rompue.
-            }
+
+    /**
+     * En règle "EXACT", une ligne complète ne gagne que si elle n'est pas prolongée
+     * par le même symbole (sinon c'est un alignement trop long).
+     */
+    private boolean extendsBeyond(int line, char symbol) {
+        return cellIs(lines.before[line], symbol) || cellIs(lines.after[line], symbol);
+    }
+
+    private boolean cellIs(int cell, char symbol) {
+        return cell >= 0 && symbolAt(cell) == symbol;
+    }
+
+    /** Lit le symbole d'une case (x * taille + y) dans l'emplacement hors tas. */
+    private char symbolAt(int cell) {
+        switch (BoardStore.get(cells, cellsOffset, cell)) {
+            case BoardStore.X: return 'X';
+            case BoardStore.O: return 'O';
+            default: return EMPTY_CELL;
         }
-        // On regarde dans la direction opposée (-dx, -dy).
-        for (int i = 1; i < WINNING_STREAK; i++) {
-            int newX = x - i * dx;
-            int newY = y - i * dy;
-            if (newX >= 0 && newX < boardSize && newY >= 0 && newY < boardSize && board[newX][newY] == symbol) {
-                count++;
-            } else {
-                break; // La chaîne est rompue.
-            }
+    }
+
+    private void setSymbol(int cell, char symbol) {
+        BoardStore.set(cells, cellsOffset, cell, symbol == 'X' ? BoardStore.X : BoardStore.O);
+    }
+
+    /**
+     * Évalue la position du point de vue d'un joueur, à partir des compteurs de lignes :
+     * chaque ligne encore gagnable par un seul joueur lui rapporte un poids qui croît
+     * avec le nombre de ses symboles déjà posés. Utilisé par les robots et l'analyse.
+     * @param symbol Le joueur pour lequel on évalue ('X' ou 'O').
+     * @return un score positif si la position lui est favorable, négatif sinon.
+     */
+    public long evaluate(char symbol) {
+        int mine = symbol == 'X' ? countX : countO;
+        int theirs = symbol == 'X' ? countO : countX;
+        long score = 0;
+        for (int line = 0; line < lines.lineCount; line++) {
+            int own = cells.get(mine + line);
+            int other = cells.get(theirs + line);
+            if (other == 0 && own > 0) score += lineWeight(own);
+            else if (own == 0 && other > 0) score -= lineWeight(other);
         }
-        return count;
+        return score;
+    }
+
+    /** Poids d'une ligne contenant n symboles d'un seul joueur (x8 par symbole, plafonné). */
+    private static long lineWeight(int n) {
+        return 1L << Math.min(3 * n, 60);
     }
 
     /**
      * Vérifie si la grille est entièrement remplie (condition de match nul).
      */
     public boolean isBoardFull() {
-        for (int i = 0; i < boardSize; i++) {
-            for (int j = 0; j < boardSize; j++) {
-                if (board[i][j] == EMPTY_CELL) {
-                    return false; // Il reste au moins une case vide.
-                }
-            }
+        if (stoneCount < boardSize * boardSize) {
+            return false; // Il reste au moins une case vide.
         }
         this.isGameOver = true; // Si aucune case vide, la partie est terminée.
         return true;
@@ -132,9 +338,35 @@ public class GameLogic {
         this.currentPlayerSymbol = (this.currentPlayerSymbol == 'X') ? 'O' : 'X';
     }
 
+    /**
+     * Donne le symbole d'une case ('X', 'O' ou '-' si elle est vide).
+     */
+    public char getCell(int x, int y) {
+        return symbolAt(x * boardSize + y);
+    }
+
     // --- Getters et Setters ---
-    public char[][] getBoard() { 
-        return this.board; 
+    /**
+     * Renvoie une copie de la grille sous forme de tableau, pour l'affichage.
+     * La grille elle-même vit hors tas : modifier ce tableau ne change pas la partie.
+     */
+    public char[][] getBoard() {
+        char[][] board = new char[boardSize][boardSize];
+        for (int i = 0; i < boardSize; i++) {
+            for (int j = 0; j < boardSize; j++) {
+                board[i][j] = symbolAt(i * boardSize + j);
+            }
+        }
+        return board;
+    }
+    public int getBoardSize() {
+        return this.boardSize;
+    }
+    public GameRules getRules() {
+        return this.rules;
+    }
+    public int getStoneCount() {
+        return this.stoneCount;
     }
     public char getCurrentPlayerSymbol() { 
         return this.currentPlayerSymbol; 
@@ -0,0 +1,266 @@
+package jeux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Le routeur de salles : un petit processus placé devant plusieurs serveurs de jeu (des "nœuds",
+ * typiquement des GameServer sans interface) pour répartir les parties entre plusieurs JVM.
+ *
+ * Le client s'y connecte comme à un serveur et envoie "CONNECT:pseudo" ou "CONNECT:pseudo;salle".
+ * Le routeur range alors les nœuds par ordre de préférence :
+ * - avec une salle, par hachage de la salle (hachage "au plus haut poids" : une salle a toujours
+ *   le même nœud préféré, et ajouter un nœud ne déplace qu'une part des salles) ;
+ * - sans salle, du nœud qui a le moins de parties relayées en cours au plus chargé.
+ * Un nœud n'héberge qu'une partie à la fois : une salle est une préférence, pas un lieu de rencontre.
+ * Puis, selon le mode :
+ * - RELAIS : il transmet "CONNECT:pseudo" au nœud préféré et lit sa réponse ; si le nœud est occupé
+ *   (SERVER_BUSY) ou injoignable, il essaie le suivant. Il recopie ensuite les octets dans les deux
+ *   sens, sans les décoder, par des tampons directs (hors tas) : rien ne passe par des tableaux Java ;
+ * - REDIRECTION : il répond "REDIRECT:hôte:port" (le nœud préféré) et ferme ; le client se reconnecte
+ *   au nœud. Le routeur ne voit alors ni les refus ni la fin des parties : si le nœud est occupé,
+ *   c'est lui qui répond SERVER_BUSY au client. Sans salle, les nœuds sont pris à tour de rôle.
+ */
+public class GameRouter {
+    public enum Mode { RELAIS, REDIRECTION }
+
+    private static final int RELAY_BUFFER_SIZE = 8192;
+
+    // --- Attributs ---
+    private final int port;
+    private final List<InetSocketAddress> nodes;
+    private final Mode mode;
+    private final AtomicInteger[] activeSessions; // Parties relayées en cours, par nœud.
+    private final AtomicInteger nextNode = new AtomicInteger(); // Tour de rôle (mode REDIRECTION, égalités).
+
+    /**
+     * @param port Le port d'écoute du routeur.
+     * @param nodes Les adresses des nœuds (au moins une).
+     * @param mode RELAIS ou REDIRECTION.
+     */
+    public GameRouter(int port, List<InetSocketAddress> nodes, Mode mode) {
+        if (nodes.isEmpty()) throw new IllegalArgumentException("Le routeur a besoin d'au moins un nœud.");
+        this.port = port;
+        this.nodes = List.copyOf(nodes);
+        this.mode = mode;
+        this.activeSessions = new AtomicInteger[nodes.size()];
+        for (int i = 0; i < activeSessions.length; i++) activeSessions[i] = new AtomicInteger();
+    }
+
+    /**
+     * Lit une liste de nœuds "hôte:port,hôte:port,...".
+     * @throws IllegalArgumentException si la liste est vide ou mal formée.
+     */
+    public static List<InetSocketAddress> parseNodes(String spec) {
+        List<InetSocketAddress> nodes = new ArrayList<>();
+        for (String node : spec.split(",")) {
+            int colon = node.lastIndexOf(':');
+            if (colon <= 0) throw new IllegalArgumentException("Nœud invalide (hôte:port attendu) : " + node);
+            try {
+                nodes.add(InetSocketAddress.createUnresolved(node.substring(0, colon).trim(),
+                        Integer.parseInt(node.substring(colon + 1).trim())));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Nœud invalide (hôte:port attendu) : " + node);
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * La boucle d'acceptation, dans le thread appelant : un thread par client le temps du routage,
+     * puis deux threads de recopie par partie relayée.
+     */
+    public void run() throws IOException {
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(port));
+            System.out.println("[Routeur] En écoute sur le port " + port + " (" + mode + ") vers " + nodes.size() + " nœud(s) : " + nodes);
+            while (true) {
+                SocketChannel client = server.accept();
+                new Thread(() -> route(client), "routage").start();
+            }
+        }
+    }
+
+    /** Lit le CONNECT du client, choisit un nœud et relaie ou redirige. */
+    private void route(SocketChannel client) {
+        try {
+            client.socket().setTcpNoDelay(true);
+            String connect = readFirstLine(client.socket());
+            if (connect == null || !connect.startsWith("CONNECT:")) {
+                client.close();
+                return;
+            }
+            // "CONNECT:pseudo;salle" : la salle ne sert qu'au routage, le nœud ne reçoit que le pseudo.
+            String[] fields = connect.substring("CONNECT:".length()).split(";", 2);
+            String room = fields.length > 1 && !fields[1].isEmpty() ? fields[1] : null;
+            List<Integer> candidates = room != null ? nodesForRoom(room) : nodesByLoad();
+
+            if (mode == Mode.REDIRECTION) {
+                InetSocketAddress address = nodes.get(candidates.get(0));
+                write(client, "REDIRECT:" + address.getHostString() + ":" + address.getPort() + "\n");
+                client.close();
+                return;
+            }
+            for (int node : candidates) {
+                SocketChannel backend = openSession(nodes.get(node), fields[0], client);
+                if (backend != null) {
+                    startRelay(client, backend, node);
+                    return;
+                }
+            }
+            refuse(client); // Tous les nœuds sont occupés.
+        } catch (IOException e) {
+            System.out.println("[Routeur] Routage impossible : " + e.getMessage());
+            refuse(client);
+        }
+    }
+
+    /**
+     * Ouvre la partie sur un nœud : envoie le CONNECT, lit la première réponse du nœud et,
+     * s'il accepte, la transmet au client.
+     * @return la connexion au nœud, prête à être relayée ; null si le nœud est occupé ou injoignable.
+     * @throws IOException si le client est parti.
+     */
+    private static SocketChannel openSession(InetSocketAddress address, String pseudo, SocketChannel client) throws IOException {
+        SocketChannel backend = null;
+        String reply;
+        try {
+            backend = SocketChannel.open(new InetSocketAddress(address.getHostString(), address.getPort()));
+            backend.socket().setTcpNoDelay(true);
+            write(backend, "CONNECT:" + pseudo + "\n");
+            reply = readFirstLine(backend.socket());
+        } catch (IOException e) {
+            // Un nœud occupé peut fermer avant d'avoir lu le CONNECT : c'est aussi un refus.
+            if (backend != null) closeQuietly(backend);
+            return null;
+        }
+        if (reply == null || reply.equals("SERVER_BUSY")) {
+            closeQuietly(backend);
+            return null;
+        }
+        try {
+            write(client, reply + "\n");
+        } catch (IOException e) {
+            closeQuietly(backend);
+            throw e;
+        }
+        return backend;
+    }
+
+    private static void refuse(SocketChannel client) {
+        try {
+            write(client, "SERVER_BUSY\n"); // Le client sait déjà traiter ce refus.
+            client.close();
+        } catch (IOException closed) { /* Le client est déjà parti. */ }
+    }
+
+    /**
+     * Lit la première ligne octet par octet (rien au-delà du '\n' n'est consommé, la suite
+     * du flux est relayée telle quelle), avec un délai et une longueur bornés.
+     */
+    private static String readFirstLine(Socket socket) throws IOException {
+        socket.setSoTimeout(Protocol.CONNECT_TIMEOUT_MILLIS);
+        InputStream in = socket.getInputStream();
+        byte[] line = new byte[Protocol.MAX_LINE_LENGTH];
+        int length = 0;
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (length == Protocol.MAX_LINE_LENGTH) throw new IOException("Ligne CONNECT trop longue");
+            line[length++] = (byte) b;
+        }
+        socket.setSoTimeout(0);
+        if (b == -1) return null;
+        if (length > 0 && line[length - 1] == '\r') length--;
+        return new String(line, 0, length, Protocol.CHARSET);
+    }
+
+    /**
+     * Hachage au plus haut poids : chaque nœud reçoit un score pour la salle, du plus haut au plus bas.
+     * Retirer ou ajouter un nœud ne change que les salles dont il est (ou devient) le meilleur.
+     * @return les numéros des nœuds, le préféré en premier.
+     */
+    private List<Integer> nodesForRoom(String room) {
+        long[] scores = new long[nodes.size()];
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            scores[i] = Protocol.mix(room.hashCode() * 0x9E3779B97F4A7C15L + nodes.get(i).toString().hashCode());
+            order.add(i);
+        }
+        order.sort(Comparator.comparingLong((Integer i) -> scores[i]).reversed());
+        return order;
+    }
+
+    /**
+     * Les nœuds du moins au plus chargé en parties relayées, à tour de rôle en cas d'égalité
+     * (donc simplement à tour de rôle en mode REDIRECTION, où aucune partie n'est relayée).
+     */
+    private List<Integer> nodesByLoad() {
+        int start = Math.floorMod(nextNode.getAndIncrement(), nodes.size());
+        int[] load = new int[nodes.size()]; // Relevé une fois : les compteurs bougent pendant le tri.
+        List<Integer> order = new ArrayList<>();
+        for (int k = 0; k < nodes.size(); k++) {
+            int i = (start + k) % nodes.size();
+            load[i] = activeSessions[i].get();
+            order.add(i);
+        }
+        order.sort(Comparator.comparingInt(i -> load[i])); // Tri stable : le tour de rôle départage.
+        return order;
+    }
+
+    /** Recopie les deux sens de la connexion jusqu'à ce que l'un des côtés ferme. */
+    private void startRelay(SocketChannel client, SocketChannel backend, int node) {
+        activeSessions[node].incrementAndGet();
+        AtomicInteger directionsLeft = new AtomicInteger(2);
+        Runnable closeWhenDone = () -> {
+            if (directionsLeft.decrementAndGet() > 0) return;
+            activeSessions[node].decrementAndGet();
+            closeQuietly(client);
+            closeQuietly(backend);
+        };
+        new Thread(() -> copy(client, backend, closeWhenDone), "relais-client").start();
+        new Thread(() -> copy(backend, client, closeWhenDone), "relais-noeud").start();
+    }
+
+    /**
+     * Recopie un sens de la connexion par un tampon direct : les octets vont de socket à socket
+     * sans passer par le tas. À la fin, ferme ce sens chez le destinataire (demi-fermeture)
+     * pour qu'il voie la fin du flux comme avec une connexion directe.
+     */
+    private static void copy(SocketChannel from, SocketChannel to, Runnable onDone) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(RELAY_BUFFER_SIZE);
+        try {
+            while (from.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) to.write(buffer);
+                buffer.clear();
+            }
+            to.shutdownOutput();
+        } catch (IOException e) {
+            // Un côté a coupé brutalement : on ferme tout.
+            closeQuietly(from);
+            closeQuietly(to);
+        } finally {
+            onDone.run();
+        }
+    }
+
+    private static void write(SocketChannel channel, String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(Protocol.CHARSET));
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) { /* Déjà fermée. */ }
+    }
+}
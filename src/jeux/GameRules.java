@@ -0,0 +1,95 @@
+package jeux;
+
+/**
+ * Les règles d'une partie, choisies par l'hôte et annoncées au client dans START_GAME :
+ * - le nombre de symboles à aligner (k) ;
+ * - si un alignement plus long que k gagne aussi ("LIBRE") ou si seul un alignement
+ *   d'exactement k symboles compte ("EXACT") ;
+ * - l'ouverture éventuelle : "SWAP" (après le premier coup, le second joueur peut s'approprier
+ *   la pierre adverse) ou "PRO" (premier coup au centre, deuxième coup de X à 3 cases au moins du centre).
+ * Une instance est immuable.
+ */
+public class GameRules {
+    /** Les ouvertures possibles. */
+    public enum Opening { AUCUNE, SWAP, PRO }
+
+    // --- Attributs ---
+    private final int winLength;
+    private final boolean exactLength;
+    private final Opening opening;
+
+    /** Distance minimale au centre du deuxième coup de X en règle pro. */
+    public static final int PRO_MIN_DISTANCE = 3;
+
+    public GameRules(int winLength, boolean exactLength, Opening opening) {
+        if (winLength < 3) throw new IllegalArgumentException("Il faut aligner au moins 3 symboles.");
+        this.winLength = winLength;
+        this.exactLength = exactLength;
+        this.opening = opening;
+    }
+
+    /** Les règles historiques du jeu : 5 alignés, alignements plus longs acceptés, sans ouverture. */
+    public static GameRules standard() {
+        return new GameRules(5, false, Opening.AUCUNE);
+    }
+
+    /**
+     * Lit des règles au format du protocole, ex: "5,LIBRE,AUCUNE" ou "6,EXACT,PRO".
+     * Les deux derniers champs sont facultatifs.
+     * @throws IllegalArgumentException si le texte est invalide.
+     */
+    public static GameRules parse(String spec) {
+        String[] parts = spec.trim().split(",");
+        try {
+            int winLength = Integer.parseInt(parts[0].trim());
+            boolean exact = parts.length > 1 && parseLengthRule(parts[1].trim());
+            Opening opening = parts.length > 2 ? Opening.valueOf(parts[2].trim().toUpperCase()) : Opening.AUCUNE;
+            return new GameRules(winLength, exact, opening);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Règles invalides : " + spec, e);
+        }
+    }
+
+    private static boolean parseLengthRule(String rule) {
+        if (rule.equalsIgnoreCase("EXACT")) return true;
+        if (rule.equalsIgnoreCase("LIBRE")) return false;
+        throw new IllegalArgumentException("Règle d'alignement inconnue : " + rule);
+    }
+
+    /** Le format transmis dans START_GAME (inverse de parse). */
+    public String encode() {
+        return winLength + "," + (exactLength ? "EXACT" : "LIBRE") + "," + opening;
+    }
+
+    /**
+     * Vérifie que ces règles sont jouables sur une grille de la taille donnée.
+     * @throws IllegalArgumentException sinon.
+     */
+    public void validate(int boardSize) {
+        if (winLength > boardSize) {
+            throw new IllegalArgumentException("Impossible d'aligner " + winLength + " symboles sur une grille " + boardSize + "x" + boardSize + ".");
+        }
+        if (opening == Opening.PRO && boardSize / 2 < PRO_MIN_DISTANCE) {
+            throw new IllegalArgumentException("La règle pro demande une grille d'au moins " + (2 * PRO_MIN_DISTANCE + 1) + " cases de côté.");
+        }
+    }
+
+    /** Une description lisible, pour les messages de l'interface. */
+    public String describe() {
+        String text = winLength + (exactLength ? " alignés exactement" : " alignés");
+        if (opening == Opening.SWAP) text += ", ouverture swap";
+        else if (opening == Opening.PRO) text += ", règle pro";
+        return text;
+    }
+
+    // --- Getters ---
+    public int getWinLength() {
+        return winLength;
+    }
+    public boolean isExactLength() {
+        return exactLength;
+    }
+    public Opening getOpening() {
+        return opening;
+    }
+}
@@ -1,14 +1,22 @@
 package jeux;
 
 import java.io.*;
+import java.lang.management.ManagementFactory;
 import java.net.*;
-import javax.swing.JOptionPane;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.SwingUtilities;
 
 /**
  * Le contrôleur côté Serveur. Il est le "maître du jeu".
  * - Gère l'instance de GameLogic (le "cerveau" du jeu).
- * - Gère l'interface graphique (GameUI) pour le joueur local (serveur).
+ * - Gère la vue du joueur local (GameUI, ou ConsoleView pour un serveur sans interface
+ *   dont le joueur X est joué par l'ordinateur).
  * - Ouvre une connexion réseau et attend un client.
  * - Gère un "ClientHandler" pour communiquer avec le client distant.
  * - Valide les coups et maintient l'état de la partie.
@@ -16,13 +24,29 @@ import javax.swing.SwingUtilities;
 public class GameServer implements GameController {
     // --- Attributs ---
     private GameLogic game;
-    private GameUI ui;
-    private PrintWriter outToClient;
+    private GameView ui;
+    private MessageOutbox outToClient; // Messages regroupés et envoyés en une écriture par événement.
     private String myPseudo;
     private String opponentPseudo;
     private final int gridSize;
+    private final GameRules rules;
+    private final GameClock clock; // La pendule est détenue par le serveur, seul juge du temps.
     private final char mySymbol = 'X'; // Le serveur est toujours le joueur 'X'.
+    /** Le port d'écoute par défaut. */
+    public static final int DEFAULT_PORT = 6789;
+    private final int port;
+    // Sans interface, X est joué par l'ordinateur et la vue est la console.
+    private final boolean headless;
+    // Le thread de la vue, où se déroule toute la logique de jeu : l'EDT avec Swing, un thread dédié sinon.
+    private final Executor viewThread;
+    private final CountDownLatch listening = new CountDownLatch(1);
     private volatile boolean gameStarted = false;
+    // Mesure du trafic sortant de la partie en cours (écritures et octets par coup).
+    private int movesPlayed;
+    private long writesAtStart, bytesAtStart;
+    private ReplayWriter replay; // Enregistrement de la partie en cours (null si impossible).
+    private boolean playAgainRequested; // Une demande de revanche de l'hôte attend sa réponse (thread de la vue).
+    private final RatingService ratings = RatingService.shared(); // Chargé au lancement du serveur.
 
     /**
      * États possibles du serveur pour gérer les connexions de manière robuste.
@@ -31,19 +55,66 @@ public class GameServer implements GameController {
     private enum ServerState { WAITING, PLAYING, GAME_OVER }
     private volatile ServerState currentState = ServerState.WAITING;
 
+    /**
+     * Change l'état du serveur. L'entrée dans l'état PLAYING et la sortie sont signalées à
+     * GameAnalyzer, pour que les analyses d'après-partie ne tournent que pendant les temps morts.
+     */
+    private synchronized void setState(ServerState state) {
+        boolean wasPlaying = currentState == ServerState.PLAYING;
+        currentState = state;
+        if (state == ServerState.PLAYING && !wasPlaying) GameAnalyzer.gameStarted();
+        else if (state != ServerState.PLAYING && wasPlaying) GameAnalyzer.gameEnded();
+    }
+
+    // --- Protection contre les inondations de messages (par connexion) ---
+    /** Nombre maximal de messages reçus en attente de traitement sur le thread de la vue. */
+    private static final int INBOUND_QUEUE_CAPACITY = 32;
+    /** Débit soutenu autorisé (messages par seconde) et rafale tolérée. */
+    private static final double MESSAGES_PER_SECOND = 10;
+    private static final int MESSAGE_BURST = 20;
+    /** Nombre de messages d'affilée reçus au-delà du débit avant d'exclure le client. */
+    private static final int MAX_THROTTLED_MESSAGES = 20;
+
     public GameServer(String pseudo, int gridSize) {
+        this(pseudo, gridSize, GameRules.standard(), 0, 0);
+    }
+
+    /**
+     * Constructeur avec règles et cadence de jeu.
+     * @param rules Les règles de la partie (déjà validées pour gridSize), annoncées au client.
+     * @param mainTimeMillis Le temps principal de chaque joueur (0 pour jouer sans pendule).
+     * @param incrementMillis Le temps ajouté à un joueur après chacun de ses coups.
+     */
+    public GameServer(String pseudo, int gridSize, GameRules rules, long mainTimeMillis, long incrementMillis) {
+        this(pseudo, gridSize, rules, mainTimeMillis, incrementMillis, DEFAULT_PORT, false);
+    }
+
+    /**
+     * Constructeur complet (lancement en ligne de commande).
+     * @param port Le port d'écoute.
+     * @param headless true pour un serveur sans interface : la console sert de vue, X est joué
+     *                 par l'ordinateur et aucune classe Swing n'est chargée.
+     */
+    public GameServer(String pseudo, int gridSize, GameRules rules, long mainTimeMillis, long incrementMillis, int port, boolean headless) {
         this.myPseudo = pseudo;
         this.gridSize = gridSize;
+        this.rules = rules;
+        this.port = port;
+        this.headless = headless;
+        this.viewThread = headless ? Executors.newSingleThreadExecutor(r -> new Thread(r, "partie")) : SwingUtilities::invokeLater;
+        // L'échéance tombe sur le thread de la pendule : on la repasse au thread de la vue comme tout le reste.
+        this.clock = new GameClock(mainTimeMillis, incrementMillis,
+                symbol -> viewThread.execute(() -> handleTimeout(symbol)));
     }
 
     /**
-     * Démarre l'interface graphique et lance le thread réseau du serveur.
+     * Démarre la vue (interface graphique ou console) et lance le thread réseau du serveur.
      */
     public void startServer() {
-        // Crée l'UI sur le thread dédié de Swing (Event Dispatch Thread) pour éviter les conflits.
-        SwingUtilities.invokeLater(() -> {
-            game = new GameLogic(gridSize);
-            ui = new GameUI(gridSize, this);
+        // Crée la vue sur son thread (l'Event Dispatch Thread pour Swing) pour éviter les conflits.
+        viewThread.execute(() -> {
+            game = new GameLogic(gridSize, rules);
+            ui = headless ? new ConsoleView(myPseudo) : new GameUI(gridSize, this);
         });
         // Lance la logique réseau dans un thread séparé pour ne pas geler l'UI.
         new Thread(this::runServerLogic).start();
@@ -54,9 +125,11 @@ public class GameServer implements GameController {
      * S'exécute dans un thread d'arrière-plan.
      */
     private void runServerLogic() {
-        try (ServerSocket serverSocket = new ServerSocket(6789)) {
+        try (ServerSocket serverSocket = new ServerSocket(port)) {
+            reportTimeToListening();
+            listening.countDown();
             String ip = InetAddress.getLocalHost().getHostAddress();
-            SwingUtilities.invokeLater(() -> ui.setStatusMessage("En attente d'un adversaire sur " + ip + "..."));
+            viewThread.execute(() -> ui.setStatusMessage("En attente d'un adversaire sur " + ip + "..."));
 
             // Le serveur tourne indéfiniment pour pouvoir accepter de nouvelles parties après une déconnexion.
             while (true) {
@@ -65,12 +138,12 @@ public class GameServer implements GameController {
                 
                 if (currentState != ServerState.WAITING) {
                     // Si une partie est en cours ou terminée (non relancée), on refuse poliment le nouveau client.
-                    new PrintWriter(clientSocket.getOutputStream(), true).println("SERVER_BUSY");
+                    new MessageOutbox(clientSocket).sendNow("SERVER_BUSY");
                     clientSocket.close();
                 } else {
                     // Un client est accepté, on passe en mode "JEU".
-                    currentState = ServerState.PLAYING;
-                    this.outToClient = new PrintWriter(clientSocket.getOutputStream(), true);
+                    setState(ServerState.PLAYING);
+                    this.outToClient = new MessageOutbox(clientSocket);
                     // On lance un thread dédié pour gérer la communication avec ce client.
                     new Thread(new ClientHandler(clientSocket)).start();
                 }
@@ -80,6 +153,33 @@ public class GameServer implements GameController {
         }
     }
 
+    /**
+     * Affiche le temps écoulé entre le lancement et l'ouverture du port d'écoute.
+     * Le lancement est l'instant passé par le script (-Djeux.lancement=<ms depuis 1970>, voir lancer.sh),
+     * création de la JVM comprise ; à défaut, le démarrage de la JVM, qui omet cette création.
+     * (ProcessHandle.startInstant() ne convient pas : sous Linux, il n'est précis qu'à la seconde.)
+     */
+    private void reportTimeToListening() {
+        long now = System.currentTimeMillis();
+        long start;
+        String origin;
+        try {
+            start = Long.parseLong(System.getProperty("jeux.lancement"));
+            origin = "le lancement";
+        } catch (NumberFormatException e) { // Propriété absente ou invalide.
+            start = ManagementFactory.getRuntimeMXBean().getStartTime();
+            origin = "le démarrage de la JVM";
+        }
+        System.out.println("[Démarrage] En écoute sur le port " + port + ", " + (now - start) + " ms après " + origin + ".");
+    }
+
+    /**
+     * Attend que le serveur écoute sur son port (lancement en ligne de commande).
+     */
+    public void awaitListening() throws InterruptedException {
+        listening.await();
+    }
+
     /**
      * Gère les clics du joueur local (serveur) sur la grille.
      * Méthode de l'interface GameController.
@@ -88,20 +188,50 @@ public class GameServer implements GameController {
     public void onGridCellClicked(int x, int y) {
         // On ne peut jouer que si la partie a commencé, que c'est notre tour et que la partie n'est pas finie.
         if (gameStarted && game.getCurrentPlayerSymbol() == mySymbol && !game.isGameOver()) {
-            // 'synchronized' empêche les conflits si le client joue en même temps (protection contre les race conditions).
-            synchronized (game) {
-                if (game.placeSymbol(x, y)) {
-                    ui.updateBoard(game.getBoard());
-                    // On informe le client que le coup est valide.
-                    outToClient.println("VALID_MOVE:" + x + ";" + y + ";" + mySymbol);
-                    
-                    // On vérifie si ce coup termine la partie.
-                    if (checkEndGame(x, y)) return;
-                    
-                    // Si la partie continue, on passe le tour.
-                    game.switchPlayer();
-                    ui.setStatusMessage("C'est le tour de " + opponentPseudo + ".");
+            playLocalMove(x, y);
+            outToClient.flush(); // Point de flush : fin de l'événement "clic local".
+        }
+    }
+
+    /**
+     * Sans interface, joue le coup de X choisi par l'ordinateur quand c'est son tour
+     * (le coup conseillé par l'analyse : gain immédiat, parade, ou meilleur coup sûr).
+     */
+    private void playBotMoveIfNeeded() {
+        if (!headless || !gameStarted || game.isGameOver() || game.getCurrentPlayerSymbol() != mySymbol) return;
+        int cell = GameAnalyzer.suggestMove(game, mySymbol);
+        if (cell >= 0) playLocalMove(cell / gridSize, cell % gridSize);
+    }
+
+    /** Joue le coup du joueur local et prépare les messages pour le client. */
+    private void playLocalMove(int x, int y) {
+        // 'synchronized' empêche les conflits si le client joue en même temps (protection contre les race conditions).
+        synchronized (game) {
+            if (game.placeSymbol(x, y)) {
+                // Le coup n'est accepté que si notre temps n'est pas écoulé.
+                if (!clock.punch(mySymbol)) {
+                    // Le coup arrive trop tard : la pierre ne doit pas rester dans la partie.
+                    game.removeSymbol(x, y);
+                    handleTimeout(mySymbol);
+                    return;
                 }
+                ui.updateBoard(game.getBoard());
+                // On informe le client que le coup est valide (avec l'état des pendules).
+                outToClient.send("VALID_MOVE:" + x + ";" + y + ";" + mySymbol + moveSuffix(0));
+                movesPlayed++;
+                recordReplayMove(x, y, mySymbol);
+                refreshClocks();
+                
+                // On vérifie si ce coup termine la partie.
+                if (checkEndGame(x, y)) return;
+                
+                // Si la partie continue, on passe le tour.
+                game.switchPlayer();
+                ui.setStatusMessage(game.canSwap()
+                        ? "C'est le tour de " + opponentPseudo + " (il peut prendre votre pierre : ouverture swap)."
+                        : "C'est le tour de " + opponentPseudo + ".");
+            } else if (!game.isGameOver()) {
+                ui.setStatusMessage("Coup non valide (case occupée ou interdite par l'ouverture). Réessayez.");
             }
         }
     }
@@ -114,41 +244,172 @@ public class GameServer implements GameController {
     private boolean checkEndGame(int x, int y) {
         boolean isWin = game.checkWin(x, y);
         boolean isDraw = !isWin && game.isBoardFull();
+        if (isWin || isDraw) {
+            clock.stop();
+            refreshClocks();
+        }
 
         if (isWin) {
             String winnerName = game.getCurrentPlayerSymbol() == mySymbol ? myPseudo : opponentPseudo;
-            SwingUtilities.invokeLater(() -> {
-            	if(myPseudo == winnerName) {
-            		String finalMessage = "FIN DE PARTIE: Vous avez gagné !";
-                    JOptionPane.showMessageDialog(ui, finalMessage, "Partie terminée", JOptionPane.INFORMATION_MESSAGE);
+            String ratingSummary = recordRating(winnerName, myPseudo.equals(winnerName) ? opponentPseudo : myPseudo, false);
+            viewThread.execute(() -> {
+            	if(myPseudo.equals(winnerName)) {
+            		String finalMessage = "FIN DE PARTIE: Vous avez gagné !\n" + ratingSummary;
+                    ui.showMessage("Partie terminée", finalMessage);
             	}else {
-            		String finalMessage = "FIN DE PARTIE: " + winnerName + " a gagné !";
-                    JOptionPane.showMessageDialog(ui, finalMessage, "Partie terminée", JOptionPane.INFORMATION_MESSAGE);
+            		String finalMessage = "FIN DE PARTIE: " + winnerName + " a gagné !\n" + ratingSummary;
+                    ui.showMessage("Partie terminée", finalMessage);
             	}
                 
                 ui.showEndGameOptions();
             });
-            outToClient.println("GAME_OVER:VICTORY;" + winnerName);
-            currentState = ServerState.GAME_OVER;
+            outToClient.send("GAME_OVER:VICTORY;" + winnerName + ";" + ratingSummary);
+            setState(ServerState.GAME_OVER);
+            reportTrafficStats();
+            finishReplay();
             return true;
         } else if (isDraw) {
-            SwingUtilities.invokeLater(() -> {
-                JOptionPane.showMessageDialog(ui, "FIN DE PARTIE: Match Nul !", "Partie terminée", JOptionPane.INFORMATION_MESSAGE);
+            String ratingSummary = recordRating(myPseudo, opponentPseudo, true);
+            viewThread.execute(() -> {
+                ui.showMessage("Partie terminée", "FIN DE PARTIE: Match Nul !\n" + ratingSummary);
                 ui.showEndGameOptions();
             });
-            outToClient.println("GAME_OVER:DRAW;NULL");
-            currentState = ServerState.GAME_OVER;
+            outToClient.send("GAME_OVER:DRAW;NULL;" + ratingSummary);
+            setState(ServerState.GAME_OVER);
+            reportTrafficStats();
+            finishReplay();
             return true;
         }
         return false;
     }
 
+    /**
+     * Termine la partie quand un joueur a dépassé son temps : son adversaire gagne.
+     * Toujours exécutée sur le thread de la vue.
+     * @param flaggedSymbol Le symbole du joueur dont le temps est écoulé.
+     */
+    private void handleTimeout(char flaggedSymbol) {
+        // L'échéance a pu tomber juste après une fin de partie ou une déconnexion.
+        if (currentState != ServerState.PLAYING || !gameStarted) return;
+        synchronized (game) {
+            if (game.isGameOver()) return;
+            game.setGameOver(true);
+        }
+        refreshClocks();
+        String winnerName = flaggedSymbol == mySymbol ? opponentPseudo : myPseudo;
+        String ratingSummary = recordRating(winnerName, flaggedSymbol == mySymbol ? myPseudo : opponentPseudo, false);
+        outToClient.send("GAME_OVER:TIMEOUT;" + winnerName + ";" + ratingSummary);
+        setState(ServerState.GAME_OVER);
+        reportTrafficStats(); // Envoie aussi GAME_OVER : l'échéance est un événement à elle seule.
+        finishReplay();
+        String finalMessage = flaggedSymbol == mySymbol
+                ? "FIN DE PARTIE: Temps écoulé, " + winnerName + " a gagné !"
+                : "FIN DE PARTIE: Temps écoulé pour " + opponentPseudo + ", vous avez gagné !";
+        finalMessage += "\n" + ratingSummary;
+        ui.showMessage("Partie terminée", finalMessage);
+        ui.showEndGameOptions();
+    }
+
+    /**
+     * Met à jour le classement Elo après une fin de partie.
+     * @param winner, loser Les deux joueurs (dans n'importe quel ordre si draw).
+     * @return Le résumé envoyé dans GAME_OVER et affiché par la vue, par exemple
+     *         "Classement : Alice 1516 (1er/2), Bob 1484 (2e/2)".
+     */
+    private String recordRating(String winner, String loser, boolean draw) {
+        ratings.recordResult(winner, loser, draw);
+        return "Classement : " + describeRating(winner) + ", " + describeRating(loser);
+    }
+
+    private String describeRating(String pseudo) {
+        RatingService.PlayerRating p = ratings.getRating(pseudo);
+        if (p == null) return pseudo + " non classé"; // Même pseudo des deux côtés : partie non classée.
+        int rank = ratings.rankOf(pseudo);
+        return pseudo + " " + p.getRating() + " (" + rank + (rank == 1 ? "er" : "e") + "/" + ratings.getPlayerCount() + ")";
+    }
+
+    /** Ouvre le fichier de replay d'une nouvelle partie ; en cas d'échec la partie se joue sans replay. */
+    private void startReplay() {
+        finishReplay();
+        try {
+            replay = ReplayWriter.create(ReplayWriter.REPLAY_DIR, rules, gridSize, myPseudo, opponentPseudo);
+        } catch (IOException e) {
+            ui.logStats("[Replay] Enregistrement impossible : " + e.getMessage());
+        }
+    }
+
+    private void recordReplayMove(int x, int y, char symbol) {
+        if (replay == null) return;
+        try {
+            replay.recordMove(x, y, symbol);
+        } catch (IOException e) {
+            ui.logStats("[Replay] Enregistrement interrompu : " + e.getMessage());
+            finishReplay();
+        }
+    }
+
+    /** Ferme le replay de la partie qui se termine (ou qui est abandonnée). */
+    private void finishReplay() {
+        if (replay == null) return;
+        try {
+            replay.close();
+            ui.logStats("[Replay] Partie enregistrée dans " + replay.getFile() + " (" + replay.getMoveCount() + " coups).");
+            if (replay.getMoveCount() > 0) GameAnalyzer.submit(replay.getFile(), // En arrière-plan, hors des parties.
+                    report -> viewThread.execute(() -> ui.logStats(report)));
+        } catch (IOException e) {
+            ui.logStats("[Replay] Fermeture impossible : " + e.getMessage());
+        }
+        replay = null;
+    }
+
+    /** Commence la mesure du trafic d'une nouvelle partie. */
+    private void markTrafficStart() {
+        movesPlayed = 0;
+        writesAtStart = outToClient.getWriteCount();
+        bytesAtStart = outToClient.getByteCount();
+    }
+
+    /**
+     * Envoie les messages en attente puis transmet à la vue le trafic sortant de la partie qui se termine :
+     * nombre d'écritures sur la socket (appels système) et d'octets, au total et par coup.
+     * Seule la console d'un serveur sans interface l'affiche.
+     */
+    private void reportTrafficStats() {
+        outToClient.flush();
+        long writes = outToClient.getWriteCount() - writesAtStart;
+        long bytes = outToClient.getByteCount() - bytesAtStart;
+        int moves = Math.max(1, movesPlayed);
+        String stats = String.format("[Réseau] Partie terminée : %d coups, %d écritures (%.2f/coup), %d octets (%.1f/coup).",
+                movesPlayed, writes, (double) writes / moves, bytes, (double) bytes / moves);
+        viewThread.execute(() -> ui.logStats(stats));
+    }
+
+    /**
+     * La fin d'un message VALID_MOVE : le temps restant des deux joueurs (";msX;msO", champs vides
+     * sans pendule) puis, pour un coup du client, son numéro de séquence (";seq").
+     * Les champs vides en fin de message sont omis.
+     * @param seq Le numéro de séquence du coup du client, 0 s'il n'y en a pas.
+     */
+    private String moveSuffix(int seq) {
+        String clocks = clock.isEnabled()
+                ? ";" + clock.getRemainingMillis('X') + ";" + clock.getRemainingMillis('O')
+                : (seq > 0 ? ";;" : "");
+        return clocks + (seq > 0 ? ";" + seq : "");
+    }
+
+    /** Met à jour l'affichage des pendules dans l'UI du serveur. */
+    private void refreshClocks() {
+        if (clock.isEnabled()) {
+            ui.setClocks(clock.getRemainingMillis('X'), clock.getRemainingMillis('O'), clock.getRunningSymbol());
+        }
+    }
+
     /**
      * Gère la fermeture de la fenêtre par le joueur local.
      */
     @Override
     public void onWindowClosed() {
-        if (outToClient != null) outToClient.println("DISCONNECT");
+        if (outToClient != null) outToClient.sendNow("DISCONNECT");
         System.exit(0);
     }
     
@@ -158,11 +419,22 @@ public class GameServer implements GameController {
     @Override
     public void onPlayAgainRequested() {
         if (currentState == ServerState.GAME_OVER) {
-            outToClient.println("PLAY_AGAIN_REQUEST");
+            playAgainRequested = true;
+            outToClient.sendNow("PLAY_AGAIN_REQUEST");
             ui.setStatusMessage("Demande de revanche envoyée...");
         }
     }
 
+    /**
+     * Lit le pseudo d'un message "CONNECT:pseudo" (ou "CONNECT:pseudo;salle").
+     * @return le pseudo, ou null si la ligne n'est pas un CONNECT avec un pseudo non vide.
+     */
+    static String parseConnectPseudo(String line) {
+        if (line == null || !line.startsWith("CONNECT:")) return null;
+        String pseudo = line.substring("CONNECT:".length()).split(";", 2)[0].trim();
+        return pseudo.isEmpty() ? null : pseudo;
+    }
+
     /**
      * Thread interne qui gère toute la communication avec un client connecté.
      * Chaque client a son propre ClientHandler.
@@ -170,79 +442,250 @@ public class GameServer implements GameController {
     private class ClientHandler implements Runnable {
         private final Socket clientSocket;
         private BufferedReader in;
+        // Les messages lus attendent ici leur traitement sur le thread de la vue. La file est bornée :
+        // quand elle est pleine, le thread de lecture s'arrête de lire et TCP freine le client.
+        private final BlockingQueue<String> inbound = new ArrayBlockingQueue<>(INBOUND_QUEUE_CAPACITY);
+        // Vrai si une tâche de vidage de la file est déjà programmée sur le thread de la vue (une seule à la fois).
+        private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+        private final TokenBucket rateLimiter = new TokenBucket(MESSAGES_PER_SECOND, MESSAGE_BURST);
+        private final StringBuilder lineBuffer = new StringBuilder();
 
         public ClientHandler(Socket socket) throws IOException {
             this.clientSocket = socket;
-            this.in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
+            this.in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream(), Protocol.CHARSET));
         }
 
         @Override
         public void run() {
+            boolean connected = false; // Vrai une fois le CONNECT reçu et valide.
             try {
                 // Étape 1: Échange des informations initiales
-                opponentPseudo = in.readLine().split(":")[1]; // Attend le message CONNECT du client
-                SwingUtilities.invokeLater(() -> ui.setTitle(myPseudo + " (" + mySymbol + ") vs " + opponentPseudo + " (O)"));
+                // Attend le message CONNECT du client ("CONNECT:pseudo", ou "CONNECT:pseudo;salle" venu sans routeur),
+                // avec un délai : un client muet ne doit pas garder la seule place de partie.
+                clientSocket.setSoTimeout(Protocol.CONNECT_TIMEOUT_MILLIS);
+                String connect = readBoundedLine();
+                clientSocket.setSoTimeout(0);
+                String pseudo = parseConnectPseudo(connect);
+                if (pseudo == null) {
+                    refuseConnection(connect == null ? "fermée avant le CONNECT" : "premier message invalide");
+                    return;
+                }
+                opponentPseudo = pseudo;
+                connected = true;
+                viewThread.execute(() -> ui.setTitle(myPseudo + " (" + mySymbol + ") vs " + opponentPseudo + " (O)"));
 
                 // Étape 2: Envoi des paramètres de la partie au client
-                outToClient.println("WELCOME:O"); // Informe le client de son symbole
-                outToClient.println("START_GAME:" + myPseudo + ";" + opponentPseudo + ";" + game.getCurrentPlayerSymbol() + ";" + gridSize);
+                // WELCOME et START_GAME sont regroupés en une seule écriture.
+                markTrafficStart();
+                // Le replay n'est manipulé que sur le thread de la vue ; programmé avant gameStarted, il s'ouvre avant tout coup.
+                viewThread.execute(GameServer.this::startReplay);
+                outToClient.send("WELCOME:O"); // Informe le client de son symbole
+                outToClient.send("START_GAME:" + myPseudo + ";" + opponentPseudo + ";" + game.getCurrentPlayerSymbol() + ";" + gridSize
+                        + ";" + clock.getMainMillis() + ";" + clock.getIncrementMillis() + ";" + rules.encode());
+                outToClient.flush();
+                // La pendule tourne avant qu'un coup puisse être accepté.
+                clock.start(game.getCurrentPlayerSymbol());
                 gameStarted = true;
-                SwingUtilities.invokeLater(() -> ui.setStatusMessage("Partie commencée! C'est à vous de jouer."));
+                viewThread.execute(() -> {
+                    ui.setStatusMessage("Partie commencée (" + rules.describe() + ") ! C'est à vous de jouer.");
+                    refreshClocks();
+                    playBotMoveIfNeeded();
+                    outToClient.flush();
+                });
 
                 // Étape 3: Boucle de réception des messages du client
                 String clientMessage;
-                while ((clientMessage = in.readLine()) != null) {
+                int throttled = 0; // Messages consécutifs reçus au-delà du débit autorisé.
+                while (true) {
+                    clientMessage = readBoundedLine();
+                    if (clientMessage == null) { // Fin du flux sans DISCONNECT : le client est parti.
+                        handleDisconnect(false);
+                        break;
+                    }
                     if ("DISCONNECT".equals(clientMessage)) {
                         handleDisconnect(true); // Déconnexion volontaire
                         break;
                     }
-                    final String finalMessage = clientMessage;
-                    SwingUtilities.invokeLater(() -> processClientMessage(finalMessage));
+                    // Limitation du débit : au-delà, on cesse de lire jusqu'au prochain jeton.
+                    if (rateLimiter.tryAcquire()) {
+                        throttled = 0;
+                    } else {
+                        if (++throttled > MAX_THROTTLED_MESSAGES) {
+                            throw new IOException("Débit de messages excessif");
+                        }
+                        TimeUnit.NANOSECONDS.sleep(rateLimiter.nanosUntilAvailable());
+                        rateLimiter.tryAcquire();
+                    }
+                    // Bloque (et donc arrête la lecture) tant que le thread de la vue n'a pas vidé la file.
+                    inbound.put(clientMessage);
+                    if (drainScheduled.compareAndSet(false, true)) {
+                        viewThread.execute(this::drainInbound);
+                    }
                 }
-            } catch (IOException e) {
-                handleDisconnect(false); // Déconnexion brutale (crash, etc.)
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                if (!connected) {
+                    refuseConnection(e.getMessage()); // Délai du CONNECT dépassé, ligne trop longue, etc.
+                    return;
+                }
+                String reason = e.getMessage();
+                viewThread.execute(() -> ui.logStats("[Réseau] Connexion du client interrompue : " + reason));
+                handleDisconnect(false); // Déconnexion brutale (crash, inondation, etc.)
+            } finally {
+                try {
+                    clientSocket.close();
+                } catch (IOException e) { /* Déjà fermée. */ }
+            }
+        }
+
+        /**
+         * Met fin à une connexion qui n'a pas envoyé de CONNECT valide : aucune partie n'a commencé,
+         * le serveur se remet simplement en attente d'un joueur (la socket est fermée par run()).
+         */
+        private void refuseConnection(String reason) {
+            viewThread.execute(() -> ui.logStats("[Réseau] Connexion refusée : " + reason));
+            setState(ServerState.WAITING);
+        }
+
+        /**
+         * Lit une ligne du protocole sans jamais accumuler plus de Protocol.MAX_LINE_LENGTH caractères,
+         * pour qu'un client qui n'envoie jamais de fin de ligne ne fasse pas grossir la mémoire.
+         * @return la ligne sans fin de ligne, ou null si le client a fermé la connexion.
+         */
+        private String readBoundedLine() throws IOException {
+            lineBuffer.setLength(0);
+            int c;
+            while ((c = in.read()) != -1) {
+                if (c == '\n') break;
+                if (lineBuffer.length() >= Protocol.MAX_LINE_LENGTH) throw new IOException("Ligne trop longue");
+                lineBuffer.append((char) c);
+            }
+            if (c == -1 && lineBuffer.length() == 0) return null;
+            int end = lineBuffer.length();
+            if (end > 0 && lineBuffer.charAt(end - 1) == '\r') end--;
+            return lineBuffer.substring(0, end);
+        }
+
+        /**
+         * Traite sur le thread de la vue tous les messages en attente. Une seule tâche de vidage par connexion
+         * est présente à la fois dans la file de ce thread, quel que soit le débit du client.
+         */
+        private void drainInbound() {
+            drainScheduled.set(false);
+            String message;
+            while ((message = inbound.poll()) != null) {
+                processClientMessage(message);
             }
         }
 
         /** Traite un message reçu du client. */
         private void processClientMessage(String message) {
-            if (message.startsWith("MOVE:")) handleMove(message);
-            else if ("PLAY_AGAIN_REQUEST".equals(message)) handlePlayAgainRequest();
-            else if (message.startsWith("PLAY_AGAIN_RESPONSE:")) handlePlayAgainResponse(message);
+            try {
+                if (message.startsWith("MOVE:")) handleMove(message);
+                else if ("SWAP".equals(message)) handleSwap();
+                else if ("PLAY_AGAIN_REQUEST".equals(message)) handlePlayAgainRequest();
+                else if (message.startsWith("PLAY_AGAIN_RESPONSE:")) handlePlayAgainResponse(message);
+            } finally {
+                outToClient.flush(); // Point de flush : toutes les réponses à ce message partent ensemble.
+            }
         }
 
         /** Gère un coup reçu du client. */
         private void handleMove(String message) {
-            if (game.getCurrentPlayerSymbol() == 'O') {
+            // Le client numérote ses coups (MOVE:x;y;seq) pour relier nos réponses à ses coups affichés d'avance.
+            int x, y, seq;
+            try {
                 String[] parts = message.split(":")[1].split(";");
-                int x = Integer.parseInt(parts[0]);
-                int y = Integer.parseInt(parts[1]);
-                synchronized (game) {
-                    if (game.placeSymbol(x, y)) {
-                        ui.updateBoard(game.getBoard());
-                        outToClient.println("VALID_MOVE:" + x + ";" + y + ";O");
-                        if (!checkEndGame(x, y)) {
-                            game.switchPlayer();
-                            ui.setStatusMessage("C'est à votre tour.");
-                        }
+                x = Integer.parseInt(parts[0]);
+                y = Integer.parseInt(parts[1]);
+                seq = parts.length > 2 ? Integer.parseInt(parts[2]) : 0;
+            } catch (RuntimeException e) {
+                outToClient.send("INVALID_MOVE:Message de coup illisible.");
+                return;
+            }
+            if (game.getCurrentPlayerSymbol() != 'O') {
+                // Toujours répondre : le client doit pouvoir annuler le coup qu'il a déjà affiché.
+                outToClient.send("INVALID_MOVE:" + seqPrefix(seq) + "Ce n'est pas votre tour.");
+                return;
+            }
+            synchronized (game) {
+                if (game.placeSymbol(x, y)) {
+                    if (!clock.punch('O')) {
+                        // Le coup arrive trop tard : la pierre ne doit pas rester dans la partie.
+                        game.removeSymbol(x, y);
+                        handleTimeout('O');
+                        return;
                     }
+                    ui.updateBoard(game.getBoard());
+                    outToClient.send("VALID_MOVE:" + x + ";" + y + ";O" + moveSuffix(seq));
+                    movesPlayed++;
+                    recordReplayMove(x, y, 'O');
+                    refreshClocks();
+                    if (!checkEndGame(x, y)) {
+                        game.switchPlayer();
+                        ui.setStatusMessage("C'est à votre tour.");
+                        playBotMoveIfNeeded();
+                    }
+                } else if (!game.isGameOver()) {
+                    outToClient.send("INVALID_MOVE:" + seqPrefix(seq) + "Case occupée ou interdite par l'ouverture.");
+                } else {
+                    outToClient.send("INVALID_MOVE:" + seqPrefix(seq) + "La partie est terminée.");
+                }
+            }
+        }
+
+        /** Le numéro de séquence en tête d'INVALID_MOVE ("seq;raison"), vide s'il n'y en a pas. */
+        private String seqPrefix(int seq) {
+            return seq > 0 ? seq + ";" : "";
+        }
+
+        /**
+         * Gère l'ouverture swap demandée par le client : sa réponse au premier coup est de
+         * prendre la pierre de X. L'échange est transmis comme un coup de O sur cette case.
+         */
+        private void handleSwap() {
+            if (game.getCurrentPlayerSymbol() != 'O') return;
+            synchronized (game) {
+                if (!game.canSwap()) {
+                    outToClient.send("INVALID_MOVE:L'échange n'est plus possible.");
+                    return;
+                }
+                if (!clock.punch('O')) {
+                    handleTimeout('O');
+                    return;
                 }
+                int cell = game.swapOpening();
+                int x = cell / gridSize;
+                int y = cell % gridSize;
+                ui.updateBoard(game.getBoard());
+                outToClient.send("VALID_MOVE:" + x + ";" + y + ";O" + moveSuffix(0));
+                movesPlayed++;
+                recordReplayMove(x, y, 'O');
+                refreshClocks();
+                game.switchPlayer();
+                ui.setStatusMessage(opponentPseudo + " a pris votre pierre d'ouverture. C'est à votre tour.");
+                playBotMoveIfNeeded();
             }
         }
 
-        /** Gère une demande de revanche reçue du client. */
+        /**
+         * Gère une demande de revanche reçue du client. Elle n'a de sens qu'une fois la partie terminée :
+         * pendant une partie, elle est ignorée (sinon un client pourrait effacer une partie en cours).
+         */
         private void handlePlayAgainRequest() {
-            int choice = JOptionPane.showConfirmDialog(ui, opponentPseudo + " veut rejouer. Accepter ?", "Demande de revanche", JOptionPane.YES_NO_OPTION);
-            outToClient.println("PLAY_AGAIN_RESPONSE:" + (choice == JOptionPane.YES_OPTION ? "OUI" : "NON"));
-            if (choice == JOptionPane.YES_OPTION) {
+            if (currentState != ServerState.GAME_OVER) return;
+            boolean accepted = ui.confirm("Demande de revanche", opponentPseudo + " veut rejouer. Accepter ?");
+            outToClient.send("PLAY_AGAIN_RESPONSE:" + (accepted ? "OUI" : "NON"));
+            if (accepted) {
                 resetGame();
             } else {
                 ui.setStatusMessage("Vous avez refusé. La partie est terminée.");
             }
         }
 
-        /** Gère la réponse à une demande de revanche. */
+        /** Gère la réponse à une demande de revanche ; une réponse que l'hôte n'a pas demandée est ignorée. */
         private void handlePlayAgainResponse(String message) {
+             if (currentState != ServerState.GAME_OVER || !playAgainRequested) return;
+             playAgainRequested = false;
              if (message.endsWith("OUI")) {
                  resetGame();
              } else {
@@ -252,34 +695,48 @@ public class GameServer implements GameController {
         
         /** Réinitialise le jeu pour une nouvelle partie. */
         private void resetGame() {
+            playAgainRequested = false;
             game.reset();
-            currentState = ServerState.PLAYING;
+            clock.reset();
+            clock.start(game.getCurrentPlayerSymbol());
+            refreshClocks();
+            setState(ServerState.PLAYING);
             ui.updateBoard(game.getBoard());
             ui.hideEndGameOptions();
             ui.setTitle(myPseudo + " (" + mySymbol + ") vs " + opponentPseudo + " (O)");
             ui.setStatusMessage("Nouvelle partie ! C'est à vous.");
-            outToClient.println("RESET_GAME");
+            outToClient.send("RESET_GAME"); // Part avec la réponse à la revanche, au flush de fin d'événement.
+            markTrafficStart();
+            startReplay();
+            playBotMoveIfNeeded();
         }
         
         /** Gère la déconnexion de l'adversaire et remet le serveur en attente. */
         private void handleDisconnect(boolean graceful) {
-            if (!game.isGameOver()) {
-                String message = graceful ? "L'adversaire a quitté la partie." : "L'adversaire s'est déconnecté brutalement.";
-                JOptionPane.showMessageDialog(ui, message);
-            }
-            // Réinitialisation de l'état du serveur
-            gameStarted = false;
-            currentState = ServerState.WAITING; // Le serveur est de nouveau en attente.
-            game.reset(); // On nettoie la grille.
-            
-            // Mise à jour de l'UI du serveur pour refléter le nouvel état.
-            SwingUtilities.invokeLater(() -> {
+            inbound.clear(); // Les messages encore en attente ne concernent plus personne.
+            // Tout le nettoyage se fait sur le thread de la vue, en une seule tâche : un vidage de la file
+            // (coup du client, réponse du robot qui pose et retire des pierres d'essai) déjà programmé
+            // se termine avant, et aucun ne peut s'intercaler au milieu de la remise à zéro.
+            viewThread.execute(() -> {
+                if (!game.isGameOver()) {
+                    String message = graceful ? "L'adversaire a quitté la partie." : "L'adversaire s'est déconnecté brutalement.";
+                    ui.showMessage("Partie interrompue", message);
+                }
+                finishReplay();
+                gameStarted = false;
+                game.reset(); // On nettoie la grille.
+                clock.reset();
+                playAgainRequested = false;
                 ui.updateBoard(game.getBoard());
                 ui.hideEndGameOptions();
+                ui.hideClocks();
                 ui.setTitle("Jeu de Carré en Réseau");
                 try {
                     ui.setStatusMessage("En attente d'un nouveau joueur sur " + InetAddress.getLocalHost().getHostAddress() + "...");
                 } catch (UnknownHostException e) {}
+                // En dernier : dès cet instant, un nouveau client peut être accepté (aussitôt, derrière un routeur) ;
+                // ses propres tâches sur le thread de la vue passeront après celle-ci.
+                setState(ServerState.WAITING); // Le serveur est de nouveau en attente.
             });
         }
     }
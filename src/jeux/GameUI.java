@@ -3,17 +3,24 @@ package jeux;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.function.IntConsumer;
 
 /**
  * Gère toute l'interface graphique (la "Vue").
  * Affiche la fenêtre, la grille, les symboles, et les messages.
  * Détecte les actions de l'utilisateur (clics) et les transmet au contrôleur.
  */
-public class GameUI extends JFrame {
+public class GameUI extends JFrame implements GameView {
     private final GameBoardPanel boardPanel;
     private final JLabel statusLabel;
     private final GameController controller;
     private final JPanel endPanel;
+    private final JLabel clockLabel;
+    private final Timer clockTimer;
+    // Dernier état des pendules reçu, et l'instant (nanoTime) où il l'a été.
+    private long clockXMillis, clockOMillis, clockStampNanos;
+    private char clockRunning;
+    private JSlider replaySlider; // Curseur du mode replay (null en partie normale).
 
     public GameUI(int gridSize, GameController controller) {
         this.controller = controller;
@@ -34,6 +41,14 @@ public class GameUI extends JFrame {
         statusLabel = new JLabel("Initialisation...", SwingConstants.CENTER);
         statusLabel.setFont(new Font("Arial", Font.BOLD, 16));
 
+        // Affichage des pendules, caché tant qu'aucune cadence n'est annoncée.
+        clockLabel = new JLabel("", SwingConstants.CENTER);
+        clockLabel.setFont(new Font("Monospaced", Font.BOLD, 16));
+        clockLabel.setVisible(false);
+        // Le décompte affiché n'est qu'un rafraîchissement visuel : le serveur reste seul juge du temps.
+        clockTimer = new Timer(200, e -> refreshClockLabel());
+
+        add(clockLabel, BorderLayout.NORTH);
         add(boardPanel, BorderLayout.CENTER);
         add(statusLabel, BorderLayout.SOUTH);
 
@@ -88,6 +103,88 @@ public class GameUI extends JFrame {
         repaint(); // Demande à Swing de redessiner le composant.
     }
 
+    /**
+     * Passe la fenêtre en mode replay : une barre de lecture (lecture/pause et curseur des coups)
+     * remplace l'affichage des pendules.
+     * @param moveCount Le nombre de coups du replay.
+     * @param onSeek Appelé avec le nombre de coups à afficher quand le curseur bouge.
+     */
+    public void showReplayControls(int moveCount, IntConsumer onSeek) {
+        replaySlider = new JSlider(0, moveCount, 0);
+        replaySlider.addChangeListener(e -> onSeek.accept(replaySlider.getValue()));
+        JButton playButton = new JButton("Lecture");
+        // Lecture automatique : un coup toutes les 500 ms jusqu'à la fin.
+        Timer playTimer = new Timer(500, e -> {
+            if (replaySlider.getValue() < replaySlider.getMaximum()) replaySlider.setValue(replaySlider.getValue() + 1);
+        });
+        playButton.addActionListener(e -> {
+            if (playTimer.isRunning()) {
+                playTimer.stop();
+                playButton.setText("Lecture");
+            } else {
+                if (replaySlider.getValue() == replaySlider.getMaximum()) replaySlider.setValue(0);
+                playTimer.start();
+                playButton.setText("Pause");
+            }
+        });
+
+        JPanel controls = new JPanel(new BorderLayout());
+        controls.add(playButton, BorderLayout.WEST);
+        controls.add(replaySlider, BorderLayout.CENTER);
+        hideClocks();
+        remove(clockLabel);
+        add(controls, BorderLayout.NORTH);
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Met à jour le nombre de coups du replay (fichier encore en cours d'écriture).
+     */
+    public void setReplayLength(int moveCount) {
+        if (replaySlider != null) replaySlider.setMaximum(moveCount);
+    }
+
+    /**
+     * Marque une case comme "coup en attente" : son symbole est dessiné en gris tant que
+     * le serveur ne l'a pas confirmé.
+     * @param x, y La case du coup en attente, ou (-1, -1) pour retirer la marque.
+     */
+    public void setPendingCell(int x, int y) {
+        boardPanel.setPendingCell(x, y);
+        repaint();
+    }
+
+    /**
+     * Encadre une case conseillée (analyse d'après-partie pendant un replay).
+     * @param x, y La case à encadrer, ou (-1, -1) pour retirer le cadre.
+     */
+    public void setHintCell(int x, int y) {
+        boardPanel.setHintCell(x, y);
+        repaint();
+    }
+
+    /**
+     * Affiche un message dans une boîte de dialogue centrée sur la fenêtre.
+     */
+    public void showMessage(String title, String message) {
+        JOptionPane.showMessageDialog(this, message, title, JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Pose une question "Oui / Non" dans une boîte de dialogue.
+     * @return true si l'utilisateur a répondu "Oui".
+     */
+    public boolean confirm(String title, String question) {
+        return JOptionPane.showConfirmDialog(this, question, title, JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION;
+    }
+
+    /**
+     * Les traces techniques ne sont pas montrées au joueur.
+     */
+    public void logStats(String message) {
+    }
+
     /**
      * Affiche un message dans la barre de statut en bas de la fenêtre.
      */
@@ -95,12 +192,61 @@ public class GameUI extends JFrame {
         statusLabel.setText(message);
     }
 
+    /**
+     * Affiche le temps restant des deux joueurs.
+     * @param xMillis, oMillis Le temps restant de chaque joueur.
+     * @param running Le symbole du joueur dont la pendule tourne (0 si elles sont arrêtées).
+     */
+    public void setClocks(long xMillis, long oMillis, char running) {
+        this.clockXMillis = xMillis;
+        this.clockOMillis = oMillis;
+        this.clockRunning = running;
+        this.clockStampNanos = System.nanoTime();
+        clockLabel.setVisible(true);
+        refreshClockLabel();
+        if (running != 0) clockTimer.start();
+        else clockTimer.stop();
+    }
+
+    /**
+     * Arrête le décompte affiché en le figeant sur sa valeur courante.
+     */
+    public void stopClocks() {
+        long elapsed = (System.nanoTime() - clockStampNanos) / 1_000_000;
+        if (clockRunning == 'X') clockXMillis = Math.max(0, clockXMillis - elapsed);
+        if (clockRunning == 'O') clockOMillis = Math.max(0, clockOMillis - elapsed);
+        setClocks(clockXMillis, clockOMillis, (char) 0);
+    }
+
+    /**
+     * Cache les pendules (par exemple en attendant un nouvel adversaire).
+     */
+    public void hideClocks() {
+        clockTimer.stop();
+        clockLabel.setVisible(false);
+    }
+
+    private void refreshClockLabel() {
+        long elapsed = (System.nanoTime() - clockStampNanos) / 1_000_000;
+        long x = clockRunning == 'X' ? Math.max(0, clockXMillis - elapsed) : clockXMillis;
+        long o = clockRunning == 'O' ? Math.max(0, clockOMillis - elapsed) : clockOMillis;
+        clockLabel.setText((clockRunning == 'X' ? "▶ " : "  ") + "X " + formatClock(x) + "   |   "
+                + "O " + formatClock(o) + (clockRunning == 'O' ? " ◀" : "  "));
+    }
+
+    private static String formatClock(long millis) {
+        long seconds = millis / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+
     /**
      * Le panneau interne qui gère le dessin de la grille et la détection des clics.
      */
     private class GameBoardPanel extends JPanel {
         private final int gridSize;
         private char[][] board;
+        private int pendingRow = -1, pendingCol = -1; // Coup affiché mais pas encore confirmé.
+        private int hintRow = -1, hintCol = -1; // Case conseillée par l'analyse.
 
         public GameBoardPanel(int size) {
             this.gridSize = size;
@@ -121,6 +267,16 @@ public class GameUI extends JFrame {
 
         public void setBoard(char[][] boardData) { this.board = boardData; }
 
+        public void setPendingCell(int row, int col) {
+            this.pendingRow = row;
+            this.pendingCol = col;
+        }
+
+        public void setHintCell(int row, int col) {
+            this.hintRow = row;
+            this.hintCol = col;
+        }
+
         /**
          * La méthode magique de Swing où tout le dessin est effectué.
          */
@@ -146,27 +302,35 @@ public class GameUI extends JFrame {
                 g.drawLine(0, i * cellSize, width, i * cellSize);
             }
 
+            // Case conseillée
+            if (hintRow >= 0) {
+                g2d.setColor(new Color(0, 160, 0));
+                g2d.setStroke(new BasicStroke(3));
+                g2d.drawRect(hintCol * cellSize + 2, hintRow * cellSize + 2, cellSize - 4, cellSize - 4);
+            }
+
             // Symboles des joueurs
             if (board != null) {
                 for (int i = 0; i < gridSize; i++) {
                     for (int j = 0; j < gridSize; j++) {
-                        if (board[i][j] == 'X') drawX(g2d, j * cellSize, i * cellSize, cellSize);
-                        else if (board[i][j] == 'O') drawO(g2d, j * cellSize, i * cellSize, cellSize);
+                        boolean pending = i == pendingRow && j == pendingCol;
+                        if (board[i][j] == 'X') drawX(g2d, j * cellSize, i * cellSize, cellSize, pending ? Color.LIGHT_GRAY : Color.BLUE);
+                        else if (board[i][j] == 'O') drawO(g2d, j * cellSize, i * cellSize, cellSize, pending ? Color.LIGHT_GRAY : Color.RED);
                     }
                 }
             }
         }
 
-        private void drawX(Graphics2D g, int x, int y, int size) {
-            g.setColor(Color.BLUE);
+        private void drawX(Graphics2D g, int x, int y, int size, Color color) {
+            g.setColor(color);
             g.setStroke(new BasicStroke(3));
             int p = size / 5; // Marge intérieure
             g.drawLine(x + p, y + p, x + size - p, y + size - p);
             g.drawLine(x + size - p, y + p, x + p, y + size - p);
         }
 
-        private void drawO(Graphics2D g, int x, int y, int size) {
-            g.setColor(Color.RED);
+        private void drawO(Graphics2D g, int x, int y, int size, Color color) {
+            g.setColor(color);
             g.setStroke(new BasicStroke(3));
             int p = size / 5; // Marge intérieure
             g.drawOval(x + p, y + p, size - 2 * p, size - 2 * p);
@@ -0,0 +1,42 @@
+package jeux;
+
+/**
+ * Ce qu'un contrôleur (GameServer) attend de sa "Vue", sans rien supposer de Swing.
+ * GameUI en est la version graphique ; ConsoleView permet de faire tourner un serveur
+ * sans interface (lancement en ligne de commande), sans charger les classes de java.desktop.
+ * Comme pour GameUI, les méthodes ne sont appelées que depuis le thread de la vue.
+ */
+public interface GameView {
+    /** Change le titre (les joueurs de la partie). */
+    void setTitle(String title);
+
+    /** Affiche un message d'état. */
+    void setStatusMessage(String message);
+
+    /** Affiche la grille. */
+    void updateBoard(char[][] board);
+
+    /** Affiche le temps restant des deux joueurs (running = symbole dont la pendule tourne, 0 si aucune). */
+    void setClocks(long xMillis, long oMillis, char running);
+
+    /** Cache les pendules. */
+    void hideClocks();
+
+    /** Propose "Rejouer" / "Quitter" en fin de partie. */
+    void showEndGameOptions();
+
+    /** Retire les options de fin de partie. */
+    void hideEndGameOptions();
+
+    /** Affiche un message important (fin de partie, départ de l'adversaire). */
+    void showMessage(String title, String message);
+
+    /**
+     * Pose une question fermée au joueur local.
+     * @return true si la réponse est "oui".
+     */
+    boolean confirm(String title, String question);
+
+    /** Une trace technique (trafic réseau, replays, analyses) : utile sur la console d'un serveur, pas au joueur. */
+    void logStats(String message);
+}
@@ -0,0 +1,86 @@
+package jeux;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * La table de toutes les lignes gagnantes d'une grille : chaque "ligne" est une fenêtre de k cases
+ * consécutives (horizontale, verticale ou diagonale) qui, remplie par un même joueur, fait gagner.
+ * La table est calculée une seule fois par couple (taille, k) puis partagée par toutes les parties,
+ * car elle ne dépend que de la géométrie de la grille.
+ * Les cases sont numérotées x * taille + y.
+ */
+final class LineTable {
+    private static final Map<Long, LineTable> CACHE = new ConcurrentHashMap<>();
+    /** Les 4 directions (dx, dy) : horizontale, verticale, diagonale, anti-diagonale. */
+    private static final int[][] DIRECTIONS = { {0, 1}, {1, 0}, {1, 1}, {1, -1} };
+
+    final int size;
+    final int length;
+    final int lineCount;
+    /** Les cases de la ligne i occupent lineCells[i * length .. (i + 1) * length - 1]. */
+    final int[] lineCells;
+    /** La case juste avant et juste après chaque ligne dans sa direction (-1 hors de la grille). */
+    final int[] before;
+    final int[] after;
+    /** Les lignes passant par la case c sont cellLines[cellStart[c] .. cellStart[c + 1] - 1]. */
+    final int[] cellStart;
+    final int[] cellLines;
+
+    /**
+     * Donne la table d'une grille, en la calculant au premier appel.
+     * @param size La taille de la grille.
+     * @param length Le nombre de symboles à aligner.
+     */
+    static LineTable get(int size, int length) {
+        return CACHE.computeIfAbsent(((long) size << 32) | length, key -> new LineTable(size, length));
+    }
+
+    private LineTable(int size, int length) {
+        this.size = size;
+        this.length = length;
+        int straight = size * (size - length + 1); // Nombre de fenêtres par direction horizontale/verticale.
+        int diagonal = (size - length + 1) * (size - length + 1);
+        this.lineCount = 2 * straight + 2 * diagonal;
+        this.lineCells = new int[lineCount * length];
+        this.before = new int[lineCount];
+        this.after = new int[lineCount];
+
+        // 1. Énumère les fenêtres de chaque direction.
+        int line = 0;
+        int[] linesPerCell = new int[size * size];
+        for (int[] d : DIRECTIONS) {
+            for (int x = 0; x < size; x++) {
+                for (int y = 0; y < size; y++) {
+                    int endX = x + (length - 1) * d[0];
+                    int endY = y + (length - 1) * d[1];
+                    if (endX < 0 || endX >= size || endY < 0 || endY >= size) continue; // La fenêtre déborde.
+                    for (int i = 0; i < length; i++) {
+                        int cell = (x + i * d[0]) * size + (y + i * d[1]);
+                        lineCells[line * length + i] = cell;
+                        linesPerCell[cell]++;
+                    }
+                    before[line] = cellAt(x - d[0], y - d[1]);
+                    after[line] = cellAt(endX + d[0], endY + d[1]);
+                    line++;
+                }
+            }
+        }
+
+        // 2. Construit l'index inverse case -> lignes (format compact, sans objet par case).
+        this.cellStart = new int[size * size + 1];
+        for (int c = 0; c < size * size; c++) cellStart[c + 1] = cellStart[c] + linesPerCell[c];
+        this.cellLines = new int[cellStart[size * size]];
+        int[] fill = new int[size * size];
+        for (int l = 0; l < lineCount; l++) {
+            for (int i = 0; i < length; i++) {
+                int cell = lineCells[l * length + i];
+                cellLines[cellStart[cell] + fill[cell]++] = l;
+            }
+        }
+    }
+
+    private int cellAt(int x, int y) {
+        return (x < 0 || x >= size || y < 0 || y >= size) ? -1 : x * size + y;
+    }
+}
@@ -0,0 +1,132 @@
+package jeux;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Générateur de charge : des clients sans interface qui enchaînent des parties (coups au hasard)
+ * contre un serveur sans interface, directement ou à travers un GameRouter.
+ * Affiche le débit obtenu en parties et en coups par seconde (voir test-routeur.sh).
+ *
+ * Usage : java jeux.LoadTest [--adresse=127.0.0.1] [--port=6789] [--clients=1] [--duree=10]
+ */
+public class LoadTest {
+    /** Délai de lecture au-delà duquel une partie est abandonnée. */
+    private static final int READ_TIMEOUT_MILLIS = 10_000;
+    private static final int MAX_REDIRECTS = 3;
+
+    // --- Attributs ---
+    private final String host;
+    private final int port;
+    private final AtomicLong games = new AtomicLong();
+    private final AtomicLong moves = new AtomicLong();
+    private final AtomicLong busy = new AtomicLong();
+
+    public LoadTest(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String host = "127.0.0.1";
+        int port = GameServer.DEFAULT_PORT, clients = 1, seconds = 10;
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--adresse=")) host = value;
+            else if (arg.startsWith("--port=")) port = Integer.parseInt(value);
+            else if (arg.startsWith("--clients=")) clients = Integer.parseInt(value);
+            else if (arg.startsWith("--duree=")) seconds = Integer.parseInt(value);
+            else throw new IllegalArgumentException("Option inconnue : " + arg);
+        }
+
+        LoadTest test = new LoadTest(host, port);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] threads = new Thread[clients];
+        for (int i = 0; i < clients; i++) {
+            String pseudo = "charge-" + (i + 1);
+            threads[i] = new Thread(() -> {
+                while (System.nanoTime() < deadline) test.playOneGame(pseudo);
+            }, pseudo);
+            threads[i].start();
+        }
+        for (Thread t : threads) t.join();
+        System.out.println(String.format("[Charge] %d client(s), %d s : %d parties (%.1f/s), %d coups (%.1f/s), %d refus (serveur occupé).",
+                clients, seconds, test.games.get(), test.games.get() / (double) seconds,
+                test.moves.get(), test.moves.get() / (double) seconds, test.busy.get()));
+    }
+
+    /**
+     * Joue une partie complète comme client (joueur O), en suivant une éventuelle redirection.
+     */
+    void playOneGame(String pseudo) {
+        String targetHost = host;
+        int targetPort = port;
+        for (int redirects = 0; redirects <= MAX_REDIRECTS; redirects++) {
+            String redirect = play(pseudo, targetHost, targetPort);
+            if (redirect == null) return;
+            int colon = redirect.lastIndexOf(':');
+            targetHost = redirect.substring(0, colon);
+            targetPort = Integer.parseInt(redirect.substring(colon + 1));
+        }
+    }
+
+    /** @return l'adresse "hôte:port" en cas de redirection, null sinon. */
+    private String play(String pseudo, String targetHost, int targetPort) {
+        try (Socket socket = new Socket(targetHost, targetPort)) {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), Protocol.CHARSET), true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), Protocol.CHARSET));
+            out.println("CONNECT:" + pseudo);
+
+            boolean[] occupied = null;
+            int size = 0, seq = 0, played = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("REDIRECT:")) return line.substring("REDIRECT:".length());
+                if (line.equals("SERVER_BUSY")) {
+                    busy.incrementAndGet();
+                    Thread.sleep(10);
+                    return null;
+                }
+                if (line.startsWith("START_GAME:")) {
+                    size = Integer.parseInt(line.split(";")[3]);
+                    occupied = new boolean[size * size];
+                } else if (line.startsWith("VALID_MOVE:")) {
+                    String[] move = line.substring("VALID_MOVE:".length()).split(";");
+                    occupied[Integer.parseInt(move[0]) * size + Integer.parseInt(move[1])] = true;
+                    played++;
+                    if (move[2].equals("X")) out.println("MOVE:" + randomEmptyCell(occupied, size) + ";" + ++seq);
+                } else if (line.startsWith("INVALID_MOVE:") && !line.contains("terminée")) {
+                    out.println("MOVE:" + randomEmptyCell(occupied, size) + ";" + ++seq);
+                } else if (line.startsWith("GAME_OVER:")) {
+                    out.println("DISCONNECT");
+                    games.incrementAndGet();
+                    moves.addAndGet(played);
+                    return null;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("[Charge] " + pseudo + " : partie interrompue (" + e.getMessage() + ").");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /** Une case libre au hasard, au format "x;y". */
+    private static String randomEmptyCell(boolean[] occupied, int size) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int cell;
+        do {
+            cell = random.nextInt(size * size);
+        } while (occupied[cell]);
+        return cell / size + ";" + cell % size;
+    }
+}
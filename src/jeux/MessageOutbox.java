@@ -0,0 +1,75 @@
+package jeux;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+
+/**
+ * Le tampon d'envoi d'une connexion.
+ * Les messages produits par un même événement (un coup, une revanche, la poignée de main...)
+ * s'accumulent ici puis partent en une seule écriture sur la socket au point de flush
+ * placé à la fin de l'événement. Un événement ne coûte ainsi qu'un appel système et,
+ * grâce à TCP_NODELAY, qu'un seul segment TCP envoyé sans attendre.
+ * Tient aussi le compte des écritures et des octets envoyés pour mesurer le trafic.
+ */
+public class MessageOutbox {
+    // --- Attributs ---
+    private final OutputStream out;
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(256);
+    private long writeCount;
+    private long byteCount;
+
+    /**
+     * Prépare le tampon d'envoi d'une socket connectée et désactive l'algorithme de Nagle :
+     * le regroupement est fait ici, à chaque fin d'événement, sans délai supplémentaire.
+     */
+    public MessageOutbox(Socket socket) throws IOException {
+        socket.setTcpNoDelay(true);
+        this.out = socket.getOutputStream();
+    }
+
+    /**
+     * Ajoute un message (une ligne du protocole) au tampon, sans l'envoyer.
+     * @param message Le message, sans fin de ligne.
+     */
+    public synchronized void send(String message) {
+        byte[] bytes = (message + "\n").getBytes(Protocol.CHARSET);
+        pending.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Point de flush de fin d'événement : envoie en une seule écriture tout ce qui a été accumulé.
+     * Comme avec un PrintWriter, une erreur d'écriture est ignorée ici : la coupure sera
+     * détectée par le thread de lecture de la connexion.
+     */
+    public synchronized void flush() {
+        if (pending.size() == 0) return;
+        try {
+            pending.writeTo(out);
+            out.flush();
+            writeCount++;
+            byteCount += pending.size();
+        } catch (IOException e) {
+            // Connexion perdue : voir la lecture.
+        } finally {
+            pending.reset();
+        }
+    }
+
+    /** Ajoute un message et l'envoie aussitôt (messages isolés : DISCONNECT, SERVER_BUSY...). */
+    public synchronized void sendNow(String message) {
+        send(message);
+        flush();
+    }
+
+    /** Nombre d'écritures (appels système) faites sur la socket depuis sa création. */
+    public synchronized long getWriteCount() {
+        return writeCount;
+    }
+
+    /** Nombre d'octets envoyés sur la socket depuis sa création. */
+    public synchronized long getByteCount() {
+        return byteCount;
+    }
+}
@@ -0,0 +1,27 @@
+package jeux;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Les conventions communes du protocole texte "COMMANDE:données" partagées par
+ * les clients, les serveurs de partie et le routeur.
+ */
+final class Protocol {
+    /** L'encodage de toutes les lignes échangées, indépendant de l'encodage par défaut de la plateforme. */
+    static final Charset CHARSET = StandardCharsets.UTF_8;
+    /** Longueur maximale d'une ligne reçue : au-delà, la connexion est coupée. */
+    static final int MAX_LINE_LENGTH = 512;
+    /** Le temps laissé à un client pour envoyer son CONNECT. */
+    static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+    private Protocol() {
+    }
+
+    /** Mélange de bits (SplitMix64) : répartit uniformément des clés proches. */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,353 @@
+package jeux;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Le classement Elo des joueurs, tenu en mémoire et sauvegardé périodiquement sur disque.
+ *
+ * Chaque joueur reçoit un identifiant entier à sa première partie. Le classement est un
+ * "instantané" immuable composé de deux arbres (treaps) persistants :
+ * - byScore, trié par classement décroissant et augmenté de la taille des sous-arbres
+ *   (arbre de statistique d'ordre) : rang d'un joueur en O(log n) ;
+ * - byId, indexé par identifiant : le classement courant d'un joueur en O(log n).
+ * Une mise à jour ne recopie que les O(log n) nœuds de ses chemins puis publie le nouvel
+ * instantané d'une seule écriture volatile. Les lectures, bien plus fréquentes que les fins
+ * de partie, ne prennent donc jamais de verrou et ne gênent jamais une mise à jour.
+ *
+ * La sauvegarde est asynchrone et groupée : un thread démon écrit l'instantané courant
+ * toutes les FLUSH_PERIOD_SECONDS secondes s'il a changé, dans un format binaire compact
+ * (fichier temporaire puis renommage atomique).
+ */
+public class RatingService {
+    public static final int INITIAL_RATING = 1500;
+    private static final int K_FACTOR = 32;
+    private static final long FLUSH_PERIOD_SECONDS = 5;
+    private static final int FILE_MAGIC = 0x4A435241; // "JCRA"
+
+    private static RatingService shared;
+
+    /** Le classement d'un joueur (immuable). */
+    public static final class PlayerRating {
+        private final String pseudo;
+        private final int rating;
+        private final int games;
+
+        PlayerRating(String pseudo, int rating, int games) {
+            this.pseudo = pseudo;
+            this.rating = rating;
+            this.games = games;
+        }
+
+        public String getPseudo() {
+            return pseudo;
+        }
+        public int getRating() {
+            return rating;
+        }
+        public int getGames() {
+            return games;
+        }
+    }
+
+    /** Un nœud immuable de treap ; "size" est le nombre de nœuds de son sous-arbre. */
+    private static final class Node {
+        final long key;
+        final int id;
+        final PlayerRating player;
+        final int priority;
+        final int size;
+        final Node left;
+        final Node right;
+
+        Node(long key, int id, PlayerRating player, int priority, Node left, Node right) {
+            this.key = key;
+            this.id = id;
+            this.player = player;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + size(left) + size(right);
+        }
+
+        /** Une copie de ce nœud avec d'autres enfants (copie de chemin). */
+        Node with(Node newLeft, Node newRight) {
+            return new Node(key, id, player, priority, newLeft, newRight);
+        }
+    }
+
+    /** L'état publié du classement : les deux arbres, toujours cohérents entre eux. */
+    private static final class Snapshot {
+        final Node byScore;
+        final Node byId;
+
+        Snapshot(Node byScore, Node byId) {
+            this.byScore = byScore;
+            this.byId = byId;
+        }
+    }
+
+    // --- Attributs ---
+    private final Path file;
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot = new Snapshot(null, null);
+    private int nextId; // Protégé par le verrou des écrivains (this).
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * Charge le classement depuis un fichier (absent = classement vide) et démarre la sauvegarde périodique.
+     */
+    public RatingService(Path file) throws IOException {
+        this(file, true);
+    }
+
+    /**
+     * @param loadFile false pour partir d'un classement vide sans lire le fichier (il sera écrasé à la prochaine sauvegarde).
+     */
+    private RatingService(Path file, boolean loadFile) throws IOException {
+        this.file = file;
+        if (loadFile) load();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sauvegarde-classement");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, FLUSH_PERIOD_SECONDS, FLUSH_PERIOD_SECONDS, TimeUnit.SECONDS);
+        // Dernière sauvegarde à la fermeture de l'application (System.exit compris).
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flushQuietly, "sauvegarde-classement-finale"));
+    }
+
+    /**
+     * Le classement commun du serveur, stocké dans "ratings.dat" (chargé au premier appel).
+     * Un fichier illisible ou corrompu n'empêche pas le serveur de démarrer : il est mis de côté
+     * ("ratings.dat.illisible") et le classement repart de zéro.
+     */
+    public static synchronized RatingService shared() {
+        if (shared == null) {
+            Path file = Path.of("ratings.dat");
+            try {
+                shared = new RatingService(file);
+            } catch (IOException e) {
+                System.out.println("[Classement] Classement illisible (" + e.getMessage() + ") : le classement repart de zéro.");
+                try {
+                    Files.move(file, file.resolveSibling(file.getFileName() + ".illisible"), StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException moveFailed) {
+                    System.out.println("[Classement] Impossible de mettre de côté " + file + " : " + moveFailed.getMessage());
+                }
+                try {
+                    shared = new RatingService(file, false);
+                } catch (IOException impossible) {
+                    throw new AssertionError(impossible); // Rien n'est lu sans chargement.
+                }
+            }
+        }
+        return shared;
+    }
+
+    // --- Mises à jour (écrivains sérialisés) ---
+
+    /**
+     * Met à jour le classement Elo des deux joueurs après une fin de partie.
+     * @param winner Le gagnant (ou l'un des deux joueurs en cas de nul).
+     * @param loser Le perdant (ou l'autre joueur en cas de nul).
+     * @param draw true pour un match nul.
+     */
+    public synchronized void recordResult(String winner, String loser, boolean draw) {
+        if (winner.equals(loser)) return; // Même pseudo des deux côtés : rien de significatif à classer.
+        Snapshot s = snapshot;
+        int winnerId = idOf(winner);
+        int loserId = idOf(loser);
+        PlayerRating a = ratingOf(s, winnerId, winner);
+        PlayerRating b = ratingOf(s, loserId, loser);
+
+        double expectedA = 1.0 / (1.0 + Math.pow(10, (b.rating - a.rating) / 400.0));
+        double scoreA = draw ? 0.5 : 1.0;
+        int delta = (int) Math.round(K_FACTOR * (scoreA - expectedA));
+
+        Snapshot next = replace(s, winnerId, a, new PlayerRating(winner, a.rating + delta, a.games + 1));
+        next = replace(next, loserId, b, new PlayerRating(loser, b.rating - delta, b.games + 1));
+        snapshot = next; // Publication : les lecteurs voient l'ancien ou le nouvel instantané, jamais un mélange.
+        dirty.set(true);
+    }
+
+    private int idOf(String pseudo) {
+        return ids.computeIfAbsent(pseudo, p -> nextId++);
+    }
+
+    private static PlayerRating ratingOf(Snapshot s, int id, String pseudo) {
+        Node node = find(s.byId, id);
+        return node != null ? node.player : new PlayerRating(pseudo, INITIAL_RATING, 0);
+    }
+
+    /** Remplace le classement d'un joueur dans les deux arbres (l'ancien peut être un joueur nouveau). */
+    private static Snapshot replace(Snapshot s, int id, PlayerRating old, PlayerRating updated) {
+        Node byScore = find(s.byId, id) == null ? s.byScore : remove(s.byScore, scoreKey(old.rating, id));
+        int priority = ThreadLocalRandom.current().nextInt();
+        byScore = insert(byScore, new Node(scoreKey(updated.rating, id), id, updated, priority, null, null));
+        Node byId = insert(remove(s.byId, id), new Node(id, id, updated, priority, null, null));
+        return new Snapshot(byScore, byId);
+    }
+
+    // --- Lectures (sans verrou) ---
+
+    /**
+     * Le rang d'un joueur (1 = premier), ou -1 s'il n'a encore joué aucune partie classée.
+     */
+    public int rankOf(String pseudo) {
+        Integer id = ids.get(pseudo);
+        if (id == null) return -1;
+        Snapshot s = snapshot;
+        Node node = find(s.byId, id);
+        if (node == null) return -1;
+        return countLess(s.byScore, scoreKey(node.player.rating, id)) + 1;
+    }
+
+    /**
+     * Le classement d'un joueur, ou null s'il n'a encore joué aucune partie classée.
+     */
+    public PlayerRating getRating(String pseudo) {
+        Integer id = ids.get(pseudo);
+        if (id == null) return null;
+        Node node = find(snapshot.byId, id);
+        return node == null ? null : node.player;
+    }
+
+    public int getPlayerCount() {
+        return size(snapshot.byId);
+    }
+
+    // --- Sauvegarde ---
+
+    /**
+     * Écrit le classement sur disque s'il a changé depuis la dernière sauvegarde.
+     * Format : FILE_MAGIC, nombre de joueurs, puis pour chacun pseudo (UTF), classement et parties.
+     */
+    public void flush() throws IOException {
+        if (!dirty.getAndSet(false)) return;
+        Snapshot s = snapshot;
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(size(s.byId));
+            List<PlayerRating> players = new ArrayList<>();
+            collect(s.byId, Integer.MAX_VALUE, players);
+            for (PlayerRating p : players) {
+                out.writeUTF(p.pseudo);
+                out.writeShort(p.rating);
+                out.writeInt(p.games);
+            }
+        } catch (IOException e) {
+            dirty.set(true); // On réessaiera à la prochaine échéance.
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.out.println("[Classement] Sauvegarde impossible : " + e.getMessage());
+        }
+    }
+
+    private void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC) throw new IOException("Ce fichier n'est pas un classement.");
+            int count = in.readInt();
+            Snapshot s = snapshot;
+            for (int i = 0; i < count; i++) {
+                PlayerRating p = new PlayerRating(in.readUTF(), in.readShort(), in.readInt());
+                int id = idOf(p.pseudo);
+                s = replace(s, id, new PlayerRating(p.pseudo, INITIAL_RATING, 0), p);
+            }
+            snapshot = s;
+        } catch (NoSuchFileException e) {
+            // Premier lancement : classement vide.
+        }
+    }
+
+    // --- Treap persistant ---
+
+    /** Clé de tri de byScore : classement décroissant, puis identifiant croissant. */
+    private static long scoreKey(int rating, int id) {
+        return ((long) (Integer.MAX_VALUE - rating) << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static Node find(Node node, long key) {
+        while (node != null && node.key != key) node = key < node.key ? node.left : node.right;
+        return node;
+    }
+
+    /** Nombre de clés strictement inférieures à key, en descendant une seule branche. */
+    private static int countLess(Node node, long key) {
+        int count = 0;
+        while (node != null) {
+            if (node.key < key) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    private static void collect(Node node, int limit, List<PlayerRating> out) {
+        if (node == null || out.size() >= limit) return;
+        collect(node.left, limit, out);
+        if (out.size() < limit) out.add(node.player);
+        collect(node.right, limit, out);
+    }
+
+    /** Sépare un arbre en {clés < key, clés >= key}, sans modifier l'original. */
+    private static Node[] split(Node node, long key) {
+        if (node == null) return new Node[] { null, null };
+        if (node.key < key) {
+            Node[] parts = split(node.right, key);
+            return new Node[] { node.with(node.left, parts[0]), parts[1] };
+        }
+        Node[] parts = split(node.left, key);
+        return new Node[] { parts[0], node.with(parts[1], node.right) };
+    }
+
+    /** Réunit deux arbres dont toutes les clés de a précèdent celles de b. */
+    private static Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) return a.with(a.left, merge(a.right, b));
+        return b.with(merge(a, b.left), b.right);
+    }
+
+    private static Node insert(Node root, Node node) {
+        Node[] parts = split(root, node.key);
+        return merge(merge(parts[0], node), parts[1]);
+    }
+
+    private static Node remove(Node root, long key) {
+        Node[] parts = split(root, key);
+        Node[] rest = split(parts[1], key + 1);
+        return merge(parts[0], rest[1]);
+    }
+}
@@ -0,0 +1,153 @@
+package jeux;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Lit un fichier écrit par ReplayWriter, en flux : l'ouverture ne lit que l'en-tête,
+ * puis chaque position est lue à la demande par accès direct dans le fichier.
+ * Ouvrir le replay d'une très longue partie (ou d'une partie encore en cours d'écriture)
+ * est donc immédiat, et aller à n'importe quel coup coûte une image clé plus moins de K coups,
+ * quelle que soit la longueur de la partie.
+ */
+public class ReplayReader implements Closeable {
+    // --- Attributs ---
+    private final FileChannel channel;
+    private final int boardSize;
+    private final int keyframeInterval;
+    private final GameRules rules;
+    private final String playerX;
+    private final String playerO;
+    private final long startTime;
+    private final long dataStart; // Position du premier bloc.
+    private final int keyframeBytes;
+    private final int blockBytes; // Une image clé + K coups.
+
+    /**
+     * Ouvre un replay en ne lisant que son en-tête.
+     * @throws IOException si le fichier n'est pas un replay valide.
+     */
+    public ReplayReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            if (in.readInt() != ReplayWriter.MAGIC) throw new IOException("Ce fichier n'est pas un replay.");
+            int version = in.readUnsignedByte();
+            if (version != ReplayWriter.VERSION) throw new IOException("Version de replay inconnue : " + version);
+            int headerLength = in.readInt();
+            this.boardSize = in.readUnsignedByte();
+            this.keyframeInterval = in.readUnsignedShort();
+            this.rules = GameRules.parse(in.readUTF());
+            this.playerX = in.readUTF();
+            this.playerO = in.readUTF();
+            this.startTime = in.readLong();
+            this.dataStart = 4 + 1 + 4 + headerLength;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e instanceof IOException ? (IOException) e : new IOException("En-tête de replay invalide.", e);
+        }
+        this.keyframeBytes = ReplayWriter.keyframeBytes(boardSize);
+        this.blockBytes = keyframeBytes + keyframeInterval * ReplayWriter.MOVE_BYTES;
+    }
+
+    /**
+     * Le nombre de coups disponibles, recalculé d'après la taille actuelle du fichier :
+     * il augmente tant que la partie est en cours d'écriture.
+     */
+    public int getMoveCount() throws IOException {
+        long data = channel.size() - dataStart;
+        if (data <= 0) return 0;
+        long fullBlocks = data / blockBytes;
+        long rest = data % blockBytes;
+        long partialMoves = rest > keyframeBytes ? (rest - keyframeBytes) / ReplayWriter.MOVE_BYTES : 0;
+        return (int) (fullBlocks * keyframeInterval + partialMoves);
+    }
+
+    /**
+     * Reconstruit la grille après les n premiers coups.
+     * @param n Le nombre de coups joués (0 = grille vide), au plus getMoveCount().
+     */
+    public char[][] positionAt(int n) throws IOException {
+        char[][] board = new char[boardSize][boardSize];
+        for (char[] row : board) Arrays.fill(row, '-');
+        if (n <= 0) return board;
+
+        // 1. L'image clé la plus proche avant n ; la dernière peut manquer (fichier en cours ou bloc plein).
+        int block = n / keyframeInterval;
+        if (block > 0 && !isKeyframeAvailable(block)) block--;
+        ByteBuffer keyframe = readFully(blockStart(block), keyframeBytes);
+        for (int cell = 0; cell < boardSize * boardSize; cell++) {
+            int code = BoardStore.get(keyframe, 0, cell);
+            if (code != BoardStore.EMPTY) board[cell / boardSize][cell % boardSize] = code == BoardStore.X ? 'X' : 'O';
+        }
+
+        // 2. Les coups entre l'image clé et n (au plus K).
+        int from = block * keyframeInterval;
+        ByteBuffer moves = readFully(blockStart(block) + keyframeBytes, (n - from) * ReplayWriter.MOVE_BYTES);
+        for (int i = from; i < n; i++) {
+            int x = moves.get() & 0xFF;
+            int y = moves.get() & 0xFF;
+            board[x][y] = (char) (moves.get() & 0xFF);
+        }
+        return board;
+    }
+
+    /**
+     * Lit un coup.
+     * @param index Le numéro du coup (à partir de 0).
+     * @return {x, y, symbole}.
+     */
+    public int[] moveAt(int index) throws IOException {
+        long position = blockStart(index / keyframeInterval) + keyframeBytes
+                + (long) (index % keyframeInterval) * ReplayWriter.MOVE_BYTES;
+        ByteBuffer move = readFully(position, ReplayWriter.MOVE_BYTES);
+        return new int[] { move.get() & 0xFF, move.get() & 0xFF, move.get() & 0xFF };
+    }
+
+    private boolean isKeyframeAvailable(int block) throws IOException {
+        return channel.size() >= blockStart(block) + keyframeBytes;
+    }
+
+    private long blockStart(int block) {
+        return dataStart + (long) block * blockBytes;
+    }
+
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new EOFException("Replay tronqué.");
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // --- Getters ---
+    public int getBoardSize() {
+        return boardSize;
+    }
+    public GameRules getRules() {
+        return rules;
+    }
+    public String getPlayerX() {
+        return playerX;
+    }
+    public String getPlayerO() {
+        return playerO;
+    }
+    public long getStartTime() {
+        return startTime;
+    }
+}
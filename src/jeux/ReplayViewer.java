@@ -0,0 +1,113 @@
+package jeux;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Le contrôleur du mode "Revoir une partie".
+ * - Ouvre un fichier de replay (seul l'en-tête est lu, voir ReplayReader).
+ * - Affiche la grille dans une GameUI munie d'une barre de lecture (lecture/pause et curseur).
+ * - Suit le fichier s'il grandit encore (partie en cours d'enregistrement).
+ * - Affiche les remarques de l'analyse d'après-partie (GameAnalyzer) dès qu'elles sont disponibles.
+ */
+public class ReplayViewer implements GameController {
+    // --- Attributs ---
+    private final Path file;
+    private final ReplayReader reader;
+    private GameAnalyzer.Annotation[] annotationByMove; // null tant que la partie n'est pas analysée.
+    private GameUI ui;
+    private int moveCount;
+    private int currentPosition;
+
+    public ReplayViewer(Path file) throws IOException {
+        this.file = file;
+        this.reader = new ReplayReader(file);
+    }
+
+    /**
+     * Crée la fenêtre sur l'EDT et affiche la position de départ.
+     */
+    public void start() {
+        SwingUtilities.invokeLater(() -> {
+            ui = new GameUI(reader.getBoardSize(), this);
+            ui.setTitle("Replay : " + reader.getPlayerX() + " (X) vs " + reader.getPlayerO() + " (O) - " + reader.getRules().describe());
+            try {
+                moveCount = reader.getMoveCount();
+            } catch (IOException e) {
+                ui.setStatusMessage("Replay illisible : " + e.getMessage());
+                return;
+            }
+            loadAnnotations();
+            ui.showReplayControls(moveCount, this::showPosition);
+            showPosition(0);
+            // Un replay encore en cours d'écriture s'allonge, et son analyse arrive après la partie :
+            // on relit les deux chaque seconde.
+            new Timer(1000, e -> {
+                refreshMoveCount();
+                if (annotationByMove == null && loadAnnotations()) showPosition(currentPosition);
+            }).start();
+        });
+    }
+
+    /** Affiche la grille après n coups. */
+    private void showPosition(int n) {
+        currentPosition = n;
+        try {
+            ui.updateBoard(reader.positionAt(n));
+            // La remarque éventuelle porte sur le dernier coup joué, le n-ième.
+            GameAnalyzer.Annotation annotation = annotationByMove != null && n > 0 && n <= annotationByMove.length
+                    ? annotationByMove[n - 1] : null;
+            ui.setHintCell(annotation != null ? annotation.getBestX() : -1, annotation != null ? annotation.getBestY() : -1);
+            ui.setStatusMessage("Coup " + n + " / " + moveCount + (annotation != null ? " - " + annotation.describe() : ""));
+        } catch (IOException e) {
+            ui.setStatusMessage("Replay illisible : " + e.getMessage());
+        }
+    }
+
+    /** Charge les remarques de l'analyse si elles existent ; renvoie true si elles ont été chargées. */
+    private boolean loadAnnotations() {
+        try {
+            List<GameAnalyzer.Annotation> annotations = GameAnalyzer.load(file);
+            if (annotations == null) return false;
+            int last = annotations.isEmpty() ? 0 : annotations.get(annotations.size() - 1).getMoveIndex() + 1;
+            GameAnalyzer.Annotation[] byMove = new GameAnalyzer.Annotation[last];
+            for (GameAnalyzer.Annotation a : annotations) byMove[a.getMoveIndex()] = a;
+            annotationByMove = byMove;
+            ui.setTitle(ui.getTitle() + " - " + annotations.size() + " remarque(s)");
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void refreshMoveCount() {
+        try {
+            int count = reader.getMoveCount();
+            if (count != moveCount) {
+                moveCount = count;
+                ui.setReplayLength(count);
+            }
+        } catch (IOException e) { /* On réessaiera à la prochaine seconde. */ }
+    }
+
+    /** Les clics sur la grille n'ont pas d'effet pendant un replay. */
+    @Override
+    public void onGridCellClicked(int x, int y) {
+    }
+
+    @Override
+    public void onWindowClosed() {
+        try {
+            reader.close();
+        } catch (IOException e) { /* Fermeture de l'application de toute façon. */ }
+        System.exit(0);
+    }
+
+    /** Pas de revanche pendant un replay. */
+    @Override
+    public void onPlayAgainRequested() {
+    }
+}
@@ -0,0 +1,141 @@
+package jeux;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enregistre une partie dans un fichier de replay, coup par coup, pendant qu'elle se joue.
+ *
+ * Format (entiers en big-endian) :
+ * - en-tête : MAGIC (4 octets), VERSION (1 octet), longueur L de la suite de l'en-tête (4 octets),
+ *   puis L octets : taille de grille (1), intervalle K entre images clés (2), règles, pseudo de X,
+ *   pseudo de O (chaînes UTF) et date de début (8) ;
+ * - puis une suite de blocs de taille fixe : une image clé (la grille complète après j*K coups,
+ *   2 bits par case comme dans BoardStore) suivie des K coups suivants (3 octets chacun : x, y, symbole).
+ *
+ * Comme tous les blocs ont la même taille, la position de n'importe quel coup se calcule :
+ * aller au coup n ne demande que de lire une image clé et d'appliquer moins de K coups (voir ReplayReader).
+ * Un échange d'ouverture s'enregistre comme un coup de O sur la case de la pierre échangée.
+ */
+public class ReplayWriter implements Closeable {
+    static final int MAGIC = 0x4A435250; // "JCRP"
+    static final int VERSION = 1;
+    static final int MOVE_BYTES = 3;
+    /** Nombre de coups entre deux images clés. */
+    static final int KEYFRAME_INTERVAL = 16;
+    /** Le dossier où le serveur range les replays. */
+    public static final Path REPLAY_DIR = Path.of("replays");
+    /** Numéro ajouté au nom des fichiers : plusieurs parties peuvent commencer dans la même milliseconde. */
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    // --- Attributs ---
+    private final Path file;
+    private final DataOutputStream out;
+    private final int boardSize;
+    private final ByteBuffer board; // La grille courante, dans le format des images clés.
+    private int moveCount;
+
+    /**
+     * Crée le fichier de replay d'une nouvelle partie dans le dossier donné, sous un nom encore libre
+     * (date à la milliseconde, numéro de séquence, pseudos) : un replay existant n'est jamais écrasé,
+     * même par un autre processus qui écrit dans le même dossier.
+     * @param dir Le dossier des replays (créé au besoin).
+     * @param rules, boardSize La configuration de la partie.
+     * @param playerX, playerO Les pseudos des deux joueurs.
+     */
+    public static ReplayWriter create(Path dir, GameRules rules, int boardSize, String playerX, String playerO) throws IOException {
+        Files.createDirectories(dir);
+        String date = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+        while (true) {
+            String name = date + "-" + SEQUENCE.incrementAndGet()
+                    + "_" + sanitize(playerX) + "_vs_" + sanitize(playerO) + ".replay";
+            try {
+                return new ReplayWriter(dir.resolve(name), rules, boardSize, playerX, playerO);
+            } catch (FileAlreadyExistsException e) {
+                // Nom déjà pris (autre processus) : on essaie le numéro suivant.
+            }
+        }
+    }
+
+    /**
+     * Crée un fichier de replay.
+     * @throws FileAlreadyExistsException si le fichier existe déjà (il n'est jamais écrasé).
+     */
+    public ReplayWriter(Path file, GameRules rules, int boardSize, String playerX, String playerO) throws IOException {
+        this.file = file;
+        this.boardSize = boardSize;
+        this.board = ByteBuffer.allocate(keyframeBytes(boardSize));
+        this.out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)));
+
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        header.writeByte(boardSize);
+        header.writeShort(KEYFRAME_INTERVAL);
+        header.writeUTF(rules.encode());
+        header.writeUTF(playerX);
+        header.writeUTF(playerO);
+        header.writeLong(System.currentTimeMillis());
+
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(headerBytes.size());
+        headerBytes.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Ajoute un coup au replay (précédé d'une image clé tous les K coups).
+     * Le fichier est vidé sur le disque à chaque coup pour qu'une partie en cours puisse déjà être suivie.
+     * @param x, y La case jouée.
+     * @param symbol Le symbole posé sur cette case ('X' ou 'O').
+     */
+    public void recordMove(int x, int y, char symbol) throws IOException {
+        if (moveCount % KEYFRAME_INTERVAL == 0) out.write(board.array());
+        out.writeByte(x);
+        out.writeByte(y);
+        out.writeByte(symbol);
+        out.flush();
+        BoardStore.set(board, 0, x * boardSize + y, symbol == 'X' ? BoardStore.X : BoardStore.O);
+        moveCount++;
+    }
+
+    /**
+     * Termine le fichier. Si le dernier bloc est complet, une image clé finale est ajoutée
+     * pour que la position finale soit, elle aussi, à une image clé de distance.
+     */
+    @Override
+    public void close() throws IOException {
+        if (moveCount > 0 && moveCount % KEYFRAME_INTERVAL == 0) out.write(board.array());
+        out.close();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /** Taille d'une image clé : la grille à 2 bits par case. */
+    static int keyframeBytes(int boardSize) {
+        return (boardSize * boardSize * 2 + 7) / 8;
+    }
+
+    /** Garde les caractères sûrs d'un pseudo pour un nom de fichier. */
+    private static String sanitize(String pseudo) {
+        String safe = pseudo.replaceAll("[^A-Za-z0-9_-]", "_");
+        return safe.isEmpty() ? "joueur" : safe;
+    }
+}
@@ -0,0 +1,49 @@
+package jeux;
+
+/**
+ * Un seau à jetons pour limiter le débit de messages d'un client.
+ * Le seau se remplit en continu au rythme choisi, jusqu'à sa capacité (la rafale tolérée),
+ * et chaque message consomme un jeton. Le remplissage est calculé à la demande à partir de
+ * System.nanoTime() : pas de thread ni de minuterie.
+ */
+public class TokenBucket {
+    // --- Attributs ---
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param perSecond Le débit soutenu autorisé, en messages par seconde.
+     * @param burst Le nombre de messages acceptés d'affilée quand le seau est plein.
+     */
+    public TokenBucket(double perSecond, int burst) {
+        this.tokensPerNano = perSecond / 1_000_000_000.0;
+        this.capacity = burst;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Consomme un jeton s'il y en a un.
+     * @return true si le message est dans le débit autorisé, false sinon.
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) return false;
+        tokens -= 1;
+        return true;
+    }
+
+    /** Le temps d'attente, en nanosecondes, avant qu'un jeton soit disponible (0 s'il y en a déjà un). */
+    public synchronized long nanosUntilAvailable() {
+        refill();
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+}
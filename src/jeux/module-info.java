@@ -1,3 +1,4 @@
 module jeux {
     requires java.desktop;
+    requires java.management;
 }
\ No newline at end of file
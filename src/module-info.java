@@ -7,4 +7,5 @@
 module JeuxIteratifSurReseau {
 	exports jeux;
 	requires java.desktop;
+	requires java.management;
 }
@@ -0,0 +1,75 @@
+#!/bin/bash
+
+# Tests de robustesse sur la machine locale : les saisies invalides doivent être refusées
+# proprement, sans jamais lancer une partie dans un état incohérent, et un client mal élevé
+# ne doit jamais empêcher le serveur d'accepter le joueur suivant.
+#
+# Usage : ./test-robustesse.sh
+# Les classes doivent être compilées (./compiler.sh).
+
+SRC="$(cd "$(dirname "$0")/src" && pwd)"
+# Les serveurs lancés écrivent leurs fichiers (replays, classement) dans un dossier jetable.
+TRAVAIL=$(mktemp -d)
+cd "$TRAVAIL" || exit 1
+ECHECS=0
+
+verifier() { # verifier <description> <code de retour du test (0 = réussi)>
+    if [ "$2" = "0" ]; then
+        echo "OK     $1"
+    else
+        echo "ÉCHEC  $1"
+        ECHECS=$((ECHECS + 1))
+    fi
+}
+
+# 1. Cadences : refusées si elles ne sont pas des nombres finis, positifs et bornés.
+for CADENCE in Infinity -Infinity NaN 1e300 -5 "5+Infinity" "5+1e300" "5+-3" "1441" "5+3601" abc; do
+    java -cp "$SRC" jeux.GameApp --role=hote --sans-interface --port=7199 --cadence="$CADENCE" --arret-apres-ecoute > /dev/null 2>&1
+    [ $? -eq 2 ]
+    verifier "cadence refusée : $CADENCE" $?
+done
+for CADENCE in 0 5 "5+3" "0.5+0" "1440+3600"; do
+    java -cp "$SRC" jeux.GameApp --role=hote --sans-interface --port=7199 --cadence="$CADENCE" --arret-apres-ecoute > /dev/null 2>&1
+    [ $? -eq 0 ]
+    verifier "cadence acceptée : $CADENCE" $?
+done
+
+# 2. Poignée de main : un client qui n'envoie pas de CONNECT valide ne doit pas bloquer le serveur.
+PORT=7198
+java -cp "$SRC" jeux.GameApp --role=hote --sans-interface --port=$PORT --cadence=0 > hote.log 2>&1 &
+HOTE=$!
+sleep 2 # Le temps que la JVM ouvre son port.
+
+premiere_reponse() { # premiere_reponse <ligne envoyée> : affiche la première ligne reçue du serveur
+    exec 3<>/dev/tcp/127.0.0.1/$PORT || return
+    echo "$1" >&3
+    local ligne=""
+    read -r -t 3 ligne <&3
+    exec 3>&-
+    echo "$ligne"
+    sleep 0.5 # Le temps que le serveur revienne en attente.
+}
+
+for MAUVAIS in "HELLO" "CONNECT:" "CONNECT:;salle" ""; do
+    premiere_reponse "$MAUVAIS" > /dev/null
+    [ "$(premiere_reponse "CONNECT:bob")" = "WELCOME:O" ]
+    verifier "CONNECT accepté après le premier message \"$MAUVAIS\"" $?
+done
+
+exec 4<>/dev/tcp/127.0.0.1/$PORT && exec 4>&- # Fermée sans rien envoyer.
+sleep 0.5
+[ "$(premiere_reponse "CONNECT:bob")" = "WELCOME:O" ]
+verifier "CONNECT accepté après une connexion fermée sans message" $?
+
+exec 4<>/dev/tcp/127.0.0.1/$PORT # Reste muette : elle doit perdre sa place au bout de 5 s.
+sleep 6
+[ "$(premiere_reponse "CONNECT:bob")" = "WELCOME:O" ]
+verifier "CONNECT accepté après une connexion muette" $?
+exec 4>&-
+
+kill $HOTE 2>/dev/null
+wait $HOTE 2>/dev/null
+
+rm -rf "$TRAVAIL"
+echo "$ECHECS échec(s)."
+[ $ECHECS -eq 0 ]
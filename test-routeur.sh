@@ -0,0 +1,37 @@
+#!/bin/bash
+
+# Test de montée en charge sur la machine locale : 1, 2 puis 4 serveurs de jeu sans interface
+# (des processus séparés) derrière un GameRouter, et autant de clients de charge (LoadTest).
+# Chaque serveur héberge une partie à la fois : le débit doit croître avec le nombre de nœuds.
+#
+# Usage : ./test-routeur.sh [durée en secondes, 10 par défaut] [RELAIS|REDIRECTION]
+# Les classes doivent être compilées (./compiler.sh).
+
+DUREE=${1:-10}
+MODE=${2:-RELAIS}
+SRC="$(cd "$(dirname "$0")/src" && pwd)"
+# Chaque nœud travaille dans son propre dossier (replays, classement).
+TRAVAIL=$(mktemp -d)
+PORT_ROUTEUR=7100
+
+for N in 1 2 4; do
+    PIDS=""
+    NOEUDS=""
+    for i in $(seq 1 "$N"); do
+        PORT=$((PORT_ROUTEUR + i))
+        mkdir -p "$TRAVAIL/noeud$i"
+        (cd "$TRAVAIL/noeud$i" && exec java -cp "$SRC" jeux.GameApp --role=hote --sans-interface --port=$PORT --pseudo=Noeud$i > noeud.log 2>&1) &
+        PIDS="$PIDS $!"
+        NOEUDS="$NOEUDS${NOEUDS:+,}127.0.0.1:$PORT"
+    done
+    java -cp "$SRC" jeux.GameApp --role=routeur --port=$PORT_ROUTEUR --noeuds=$NOEUDS --mode=$MODE > "$TRAVAIL/routeur.log" 2>&1 &
+    PIDS="$PIDS $!"
+    sleep 2 # Le temps que les JVM ouvrent leurs ports.
+
+    echo -n "$N nœud(s), $MODE : "
+    java -cp "$SRC" jeux.LoadTest --port=$PORT_ROUTEUR --clients="$N" --duree="$DUREE"
+
+    kill $PIDS 2>/dev/null
+    wait $PIDS 2>/dev/null
+done
+rm -rf "$TRAVAIL"